@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.github.kvnxiao.jsonequals.JsonBackend;
+import com.github.kvnxiao.jsonequals.JsonCompareResult;
+import com.github.kvnxiao.jsonequals.JsonRoot;
+import com.github.kvnxiao.jsonequals.jackson.JacksonNodes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks parsing and comparing the pairs of JSON files under the tests folder, which are
+ * resolved against the directory set by the {@code jsonequals.corpus} system property, with each
+ * parser backend, and from UTF-8 bytes compared without parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CorpusBenchmark {
+
+  private static final String CORPUS_DIR = System.getProperty("jsonequals.corpus", "tests");
+
+  @Param({"book", "array", "multiarray", "multi_array_objects", "prune", "ignore_prune"})
+  public String corpus;
+
+  @Param({"lazyjson", "jackson", "utf8"})
+  public String backend;
+
+  private JsonBackend parser;
+  private String rawA;
+  private JsonRoot jsonA;
+  private JsonRoot jsonB;
+  private Set<String> ignoreFields;
+  private Map<String, String> pruneFields;
+
+  @Setup
+  public void setUp() throws IOException {
+    switch (backend) {
+      case "jackson":
+        parser = JacksonNodes.backend();
+        break;
+      case "utf8":
+        parser = raw -> JsonRoot.from(raw.getBytes(StandardCharsets.UTF_8));
+        break;
+      default:
+        parser = JsonBackend.LAZY_JSON;
+        break;
+    }
+    rawA = read(corpus + "_a.json");
+    jsonA = parser.parse(rawA);
+    jsonB = parser.parse(read(corpus + "_b.json"));
+
+    // The same rules as used by IgnoreAndPruneTest, and none for the other files
+    switch (corpus) {
+      case "prune":
+        ignoreFields = Collections.emptySet();
+        pruneFields = Collections.singletonMap("$.array[*]:id.isValid", "false");
+        break;
+      case "ignore_prune":
+        ignoreFields = Collections.singleton("$[*].data.last_updated");
+        pruneFields = Collections.singletonMap("$[*].data.identities[*]:installed", "false");
+        break;
+      default:
+        ignoreFields = Collections.emptySet();
+        pruneFields = Collections.emptyMap();
+        break;
+    }
+  }
+
+  @Benchmark
+  public JsonRoot from() {
+    return parser.parse(rawA);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareTo() {
+    return jsonA.compareTo(jsonB);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareToWithIgnore() {
+    return jsonA.compareToWithIgnore(jsonB, ignoreFields);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareToWithPrune() {
+    return jsonA.compareToWithPrune(jsonB, pruneFields);
+  }
+
+  private static String read(String fileName) throws IOException {
+    return new String(Files.readAllBytes(Paths.get(CORPUS_DIR, fileName)), StandardCharsets.UTF_8);
+  }
+}
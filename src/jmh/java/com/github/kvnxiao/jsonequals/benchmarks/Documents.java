@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates JSON documents for benchmarks. Each document holds an array of records, where each
+ * record nests a chain of child records down to the requested depth, and every record holds a
+ * string, an integer, a floating point number, a boolean, a timestamp and a short array.
+ *
+ * <p>The comparate differs from the source in the timestamp of every record, which the ignore rules
+ * leave out, and in the score of every 97th top level record and of its child records, so that
+ * every comparison reports a few inequalities.
+ */
+final class Documents {
+
+  private Documents() {}
+
+  /**
+   * Generates a JSON document.
+   *
+   * @param arrayLength The number of top level records
+   * @param depth The number of nested records in each top level record, including itself
+   * @param comparate Whether to generate the comparate rather than the source
+   * @return The raw JSON document
+   */
+  static String generate(int arrayLength, int depth, boolean comparate) {
+    StringBuilder builder = new StringBuilder("{\"items\": [");
+    for (int i = 0; i < arrayLength; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      appendRecord(builder, i, depth, comparate);
+    }
+    return builder.append("]}").toString();
+  }
+
+  /**
+   * Creates the rules ignoring the timestamp of every record, padded with rules which match no
+   * field of the documents.
+   *
+   * @param ruleCount The number of rules to create
+   * @param depth The depth of the documents
+   * @return The set of JSON node paths to ignore
+   */
+  static Set<String> ignoreFields(int ruleCount, int depth) {
+    Set<String> ignoreFields = new HashSet<>();
+    StringBuilder path = new StringBuilder("$.items[*]");
+    for (int level = 0; level < depth && ignoreFields.size() < ruleCount; level++) {
+      ignoreFields.add(path + ".ts");
+      path.append(".child");
+    }
+    for (int i = 0; ignoreFields.size() < ruleCount; i++) {
+      ignoreFields.add("$.items[*].unused" + i);
+    }
+    return ignoreFields;
+  }
+
+  /**
+   * Creates the rules pruning every inactive top level record, padded with rules which match no
+   * record of the documents.
+   *
+   * @param ruleCount The number of rules to create
+   * @return The predicate map of JSON node paths to expected values to prune
+   */
+  static Map<String, String> pruneFields(int ruleCount) {
+    Map<String, String> pruneFields = new HashMap<>();
+    pruneFields.put("$.items[*]:active", "false");
+    for (int i = 1; i < ruleCount; i++) {
+      pruneFields.put("$.items[*]:unused" + i, "true");
+    }
+    return pruneFields;
+  }
+
+  private static void appendRecord(StringBuilder builder, int id, int depth, boolean comparate) {
+    builder
+        .append("{\"id\": ")
+        .append(id)
+        .append(", \"name\": \"record-")
+        .append(id)
+        .append("\", \"score\": ")
+        .append(comparate && id % 97 == 0 ? id + 0.25 : id + 0.5)
+        .append(", \"active\": ")
+        .append(id % 3 != 0)
+        .append(", \"ts\": ")
+        .append(comparate ? 1500000000000L + id : 1400000000000L + id)
+        .append(", \"tags\": [\"a\", \"b\", ")
+        .append(id % 10)
+        .append(']');
+    if (depth > 1) {
+      builder.append(", \"child\": ");
+      appendRecord(builder, id, depth - 1, comparate);
+    }
+    builder.append('}');
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.github.kvnxiao.jsonequals.JsonCompareResult;
+import com.github.kvnxiao.jsonequals.JsonRoot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks parsing and comparing generated JSON documents of varying array length, depth and
+ * number of rules. See {@link Documents} for the shape of the documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeneratedBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  public int arrayLength;
+
+  @Param({"1", "4", "16"})
+  public int depth;
+
+  @Param({"1", "64"})
+  public int ruleCount;
+
+  private String rawA;
+  private JsonRoot jsonA;
+  private JsonRoot jsonB;
+  private Set<String> ignoreFields;
+  private Map<String, String> pruneFields;
+
+  @Setup
+  public void setUp() {
+    rawA = Documents.generate(arrayLength, depth, false);
+    jsonA = JsonRoot.from(rawA);
+    jsonB = JsonRoot.from(Documents.generate(arrayLength, depth, true));
+    ignoreFields = Documents.ignoreFields(ruleCount, depth);
+    pruneFields = Documents.pruneFields(ruleCount);
+  }
+
+  @Benchmark
+  public JsonRoot from() {
+    return JsonRoot.from(rawA);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareTo() {
+    return jsonA.compareTo(jsonB);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareToWithIgnore() {
+    return jsonA.compareToWithIgnore(jsonB, ignoreFields);
+  }
+
+  @Benchmark
+  public JsonCompareResult compareToWithPrune() {
+    return jsonA.compareToWithPrune(jsonB, pruneFields);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.util.Arrays;
+
+/**
+ * A minimal diff of two sequences of element hashes, using the linear space variant of Myers' O(ND)
+ * algorithm: each step finds the middle snake of the shortest edit script by searching forwards and
+ * backwards at once, then recurses on both halves. Only two vectors of the length of both sequences
+ * are held, and the search gives up once the edit distance exceeds a cap, so that time stays within
+ * O((N + M) * cap).
+ */
+final class ArrayDiff {
+
+  private final long[] a;
+  private final long[] b;
+  private final int[] matches;
+  private final int[] forward;
+  private final int[] backward;
+  private final int offset;
+
+  private ArrayDiff(long[] a, long[] b) {
+    this.a = a;
+    this.b = b;
+    this.matches = new int[a.length];
+    Arrays.fill(matches, -1);
+    this.offset = (a.length + b.length + 1) / 2 + 1;
+    this.forward = new int[2 * offset + 1];
+    this.backward = new int[2 * offset + 1];
+  }
+
+  /**
+   * Computes the longest common subsequence of two sequences of element hashes.
+   *
+   * @param a The hashes of the source elements
+   * @param b The hashes of the comparate elements
+   * @param maxEdits The maximum number of insertions and deletions to search for
+   * @return For each source element, the index of the comparate element it is matched to, or -1 if
+   *     it was deleted; or null if more than maxEdits insertions and deletions are needed
+   */
+  static int[] matches(long[] a, long[] b, int maxEdits) {
+    ArrayDiff diff = new ArrayDiff(a, b);
+    return diff.diff(0, a.length, 0, b.length, maxEdits) ? diff.matches : null;
+  }
+
+  /** Diffs a[aFrom, aTo) against b[bFrom, bTo), returning false if the cap was exceeded. */
+  private boolean diff(int aFrom, int aTo, int bFrom, int bTo, int maxEdits) {
+    while (aFrom < aTo && bFrom < bTo && a[aFrom] == b[bFrom]) {
+      matches[aFrom++] = bFrom++;
+    }
+    while (aFrom < aTo && bFrom < bTo && a[aTo - 1] == b[bTo - 1]) {
+      matches[--aTo] = --bTo;
+    }
+    if (aFrom == aTo || bFrom == bTo) {
+      return (aTo - aFrom) + (bTo - bFrom) <= maxEdits;
+    }
+
+    int[] snake = middleSnake(aFrom, aTo, bFrom, bTo, maxEdits);
+    if (snake == null) {
+      return false;
+    }
+    int x = snake[0];
+    int y = snake[1];
+    int u = snake[2];
+    int v = snake[3];
+    // The halves need no cap of their own, as the whole script is already known to fit
+    diff(aFrom, x, bFrom, y, Integer.MAX_VALUE);
+    for (int i = x; i < u; i++) {
+      matches[i] = y + i - x;
+    }
+    diff(u, aTo, v, bTo, Integer.MAX_VALUE);
+    return true;
+  }
+
+  /**
+   * Finds the middle snake of the shortest edit script of a[aFrom, aTo) and b[bFrom, bTo).
+   *
+   * @return The start and end points of the snake as {x, y, u, v}, or null if the edit script is
+   *     longer than maxEdits
+   */
+  private int[] middleSnake(int aFrom, int aTo, int bFrom, int bTo, int maxEdits) {
+    int n = aTo - aFrom;
+    int m = bTo - bFrom;
+    int delta = n - m;
+    boolean odd = (delta & 1) != 0;
+    int maxD = Math.min((n + m + 1) / 2, maxEdits / 2 + 1);
+    forward[offset + 1] = 0;
+    backward[offset + 1] = 0;
+
+    for (int d = 0; d <= maxD; d++) {
+      for (int k = -d; k <= d; k += 2) {
+        int x =
+            k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                ? forward[offset + k + 1]
+                : forward[offset + k - 1] + 1;
+        int y = x - k;
+        int startX = x;
+        int startY = y;
+        while (x < n && y < m && a[aFrom + x] == b[bFrom + y]) {
+          x++;
+          y++;
+        }
+        forward[offset + k] = x;
+        int c = delta - k;
+        if (odd && c >= -(d - 1) && c <= d - 1 && x + backward[offset + c] >= n) {
+          return 2 * d - 1 <= maxEdits
+              ? new int[] {aFrom + startX, bFrom + startY, aFrom + x, bFrom + y}
+              : null;
+        }
+      }
+      for (int c = -d; c <= d; c += 2) {
+        int x =
+            c == -d || (c != d && backward[offset + c - 1] < backward[offset + c + 1])
+                ? backward[offset + c + 1]
+                : backward[offset + c - 1] + 1;
+        int y = x - c;
+        int startX = x;
+        int startY = y;
+        while (x < n && y < m && a[aTo - 1 - x] == b[bTo - 1 - y]) {
+          x++;
+          y++;
+        }
+        backward[offset + c] = x;
+        int k = delta - c;
+        if (!odd && k >= -d && k <= d && x + forward[offset + k] >= n) {
+          return 2 * d <= maxEdits
+              ? new int[] {aTo - x, bTo - y, aTo - startX, bTo - startY}
+              : null;
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader decoding UTF-8 characters directly from a byte buffer, such as a memory-mapped file,
+ * into the caller's character array. Reads of fewer than two characters may return no characters
+ * before the end of the buffer, so callers should read into a larger array.
+ */
+final class ByteBufferReader extends Reader {
+
+  private final ByteBuffer bytes;
+  private final CharsetDecoder decoder =
+      StandardCharsets.UTF_8
+          .newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private boolean done = false;
+
+  ByteBufferReader(ByteBuffer bytes) {
+    this.bytes = bytes;
+  }
+
+  @Override
+  public int read(char[] chars, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    CharBuffer out = CharBuffer.wrap(chars, offset, length);
+    if (!done && decoder.decode(bytes, out, true).isUnderflow()) {
+      done = decoder.flush(out).isUnderflow();
+    }
+    int read = out.position() - offset;
+    return read == 0 && done ? -1 : read;
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,316 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.BEGIN_CURLY;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import me.doubledutch.lazyjson.LazyArray;
+import me.doubledutch.lazyjson.LazyObject;
+import me.doubledutch.lazyjson.LazyType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares two JSON documents held as UTF-8 bytes when no rules apply to either of them, collecting
+ * its results into a {@link Comparison}.
+ *
+ * <p>Both documents are read in lockstep by a pair of {@link Utf8Cursor}s, and field names and
+ * values are compared byte for byte where they lie, so that comparing nodes which are spelled alike
+ * allocates nothing: child key names are pushed onto the path as spans, and values are only decoded
+ * to report them. As with a {@link StreamingComparison}, the remaining fields of two JSON objects
+ * whose fields diverge are decoded and compared as trees, as are JSON arrays which are diffed.
+ *
+ * <p>Only used without an inequality limit or a listener, so that the comparison never stops early
+ * and every JSON object or array is checked as a whole once read, collecting the same results as a
+ * comparison of trees.
+ */
+final class ByteComparison {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JsonComparator.class);
+
+  private final Comparison comparison;
+  private final PathStack path;
+  private final Utf8Cursor a;
+  private final Utf8Cursor b;
+  private final boolean debugMode;
+  private final NumericTolerance numbers;
+
+  ByteComparison(
+      Comparison comparison,
+      ByteBuffer source,
+      ByteBuffer comparate,
+      boolean debugMode,
+      NumericTolerance numbers) {
+    this.comparison = comparison;
+    this.path = comparison.path();
+    this.a = new Utf8Cursor(source);
+    this.b = new Utf8Cursor(comparate);
+    this.debugMode = debugMode;
+    this.numbers = numbers;
+  }
+
+  /**
+   * Compares both documents, starting from the root element.
+   *
+   * @return false if both root elements are not of the same type, true otherwise
+   * @throws IOException if either document is not well-formed
+   */
+  boolean compare() throws IOException {
+    JsonScanner.Token tokenA = a.next();
+    JsonScanner.Token tokenB = b.next();
+    if (tokenA == JsonScanner.Token.BEGIN_OBJECT && tokenB == JsonScanner.Token.BEGIN_OBJECT) {
+      compareObject();
+    } else if (tokenA == JsonScanner.Token.BEGIN_ARRAY && tokenB == JsonScanner.Token.BEGIN_ARRAY) {
+      compareArray();
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private void compareObject() throws IOException {
+    comparison.visitObject();
+
+    int objectA = a.tokenStart();
+    int objectB = b.tokenStart();
+    long mark = comparison.mark();
+    while (!comparison.shouldStop()) {
+      JsonScanner.Token tokenA = a.next();
+      JsonScanner.Token tokenB = b.next();
+      if (tokenA == JsonScanner.Token.END_OBJECT && tokenB == JsonScanner.Token.END_OBJECT) {
+        break;
+      }
+      if (tokenA == JsonScanner.Token.FIELD_NAME
+          && tokenB == JsonScanner.Token.FIELD_NAME
+          && a.textEquals(b)) {
+        path.push(a, a.textStart(), a.textEnd());
+        compareField();
+        path.pop();
+      } else {
+        // Commits or rolls back the mark itself
+        compareRemainingFields(tokenA, tokenB, objectA, objectB, mark);
+        return;
+      }
+    }
+    comparison.commit();
+  }
+
+  /**
+   * Decodes and compares the remaining fields of two JSON objects whose fields have diverged, as
+   * {@link StreamingComparison} does. Should the objects turn out not to have the same child key
+   * names, both objects are decoded as a whole to report all of their key names.
+   */
+  private void compareRemainingFields(
+      JsonScanner.Token tokenA, JsonScanner.Token tokenB, int objectA, int objectB, long mark)
+      throws IOException {
+    JsonObjectNode restA = readRemainingFields(a, tokenA);
+    JsonObjectNode restB = readRemainingFields(b, tokenB);
+    if (comparison.diffsKeys()) {
+      // Fields already compared are common to both objects, so only the rest need merging
+      comparison.compareMembers(restA, restB, null, null, null);
+      comparison.commit();
+      return;
+    }
+    Set<String> fieldsA = restA.keySet();
+    Set<String> fieldsB = restB.keySet();
+    if (fieldsA.equals(fieldsB)) {
+      for (String fieldName : fieldsA) {
+        if (comparison.shouldStop()) {
+          break;
+        }
+        comparison.compareField(restA, restB, fieldName, null, null, null);
+      }
+      comparison.commit();
+    } else {
+      comparison.rollback(mark);
+      comparison.logInequality(
+          Difference.Kind.KEYS_MISMATCH,
+          LazyJsonNodes.of(new LazyObject(a.decode(objectA, a.position()))).keySet(),
+          LazyJsonNodes.of(new LazyObject(b.decode(objectB, b.position()))).keySet());
+    }
+  }
+
+  private static JsonObjectNode readRemainingFields(Utf8Cursor cursor, JsonScanner.Token token)
+      throws IOException {
+    if (token == JsonScanner.Token.FIELD_NAME) {
+      int from = cursor.tokenStart();
+      cursor.skipRest();
+      return LazyJsonNodes.of(new LazyObject(BEGIN_CURLY + cursor.decode(from, cursor.position())));
+    }
+    return LazyJsonNodes.of(new LazyObject(BEGIN_CURLY + "}"));
+  }
+
+  private void compareField() throws IOException {
+    JsonScanner.Token tokenA = a.next();
+    JsonScanner.Token tokenB = b.next();
+    if (tokenA == JsonScanner.Token.BEGIN_OBJECT && tokenB == JsonScanner.Token.BEGIN_OBJECT) {
+      compareObject();
+    } else if (tokenA == JsonScanner.Token.BEGIN_ARRAY && tokenB == JsonScanner.Token.BEGIN_ARRAY) {
+      compareArray();
+    } else {
+      if (debugMode) {
+        LOGGER.debug("Checking leaf object: {}", path);
+      }
+      comparison.visitLeaf();
+      LazyType typeA = typeOf(a, tokenA);
+      LazyType typeB = typeOf(b, tokenB);
+      a.skipValue(tokenA);
+      b.skipValue(tokenB);
+      if (typeA != typeB || typeA == LazyType.OBJECT || typeA == LazyType.ARRAY) {
+        comparison.logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+      } else if (a.textEquals(b) || valuesMatch(typeA, typeB)) {
+        if (comparison.collectSuccess()) {
+          comparison.addSuccessMessage(a.text());
+        }
+      } else {
+        comparison.logInequality(Difference.Kind.VALUE_MISMATCH, a.text(), b.text());
+      }
+    }
+  }
+
+  /** Checks whether two values which are not spelled alike are still equal as numbers. */
+  private boolean valuesMatch(LazyType typeA, LazyType typeB) {
+    if (typeA != LazyType.INTEGER && typeA != LazyType.FLOAT) {
+      return false;
+    }
+    return numbers.matches(numbers.valueOf(typeA, a.text()), numbers.valueOf(typeB, b.text()));
+  }
+
+  private void compareArray() throws IOException {
+    if (comparison.diffsArrays()) {
+      // Diffed elements may be matched to any element of the other array, so both are decoded and
+      // compared as trees
+      comparison.compareNode(readArray(a), readArray(b), null, null, null);
+      return;
+    }
+    comparison.visitArray();
+
+    long mark = comparison.mark();
+    int sizeA = 0;
+    int sizeB = 0;
+    int objectsA = 0;
+    int objectsB = 0;
+    int arraysA = 0;
+    int arraysB = 0;
+    while (!comparison.shouldStop()) {
+      JsonScanner.Token tokenA = a.next();
+      JsonScanner.Token tokenB = b.next();
+      if (tokenA == JsonScanner.Token.END_ARRAY || tokenB == JsonScanner.Token.END_ARRAY) {
+        // Only the elements left in the longer array are counted, without comparing them
+        for (; tokenA != JsonScanner.Token.END_ARRAY; tokenA = a.next()) {
+          sizeA++;
+          objectsA += tokenA == JsonScanner.Token.BEGIN_OBJECT ? 1 : 0;
+          arraysA += tokenA == JsonScanner.Token.BEGIN_ARRAY ? 1 : 0;
+          a.skipValue(tokenA);
+        }
+        for (; tokenB != JsonScanner.Token.END_ARRAY; tokenB = b.next()) {
+          sizeB++;
+          objectsB += tokenB == JsonScanner.Token.BEGIN_OBJECT ? 1 : 0;
+          arraysB += tokenB == JsonScanner.Token.BEGIN_ARRAY ? 1 : 0;
+          b.skipValue(tokenB);
+        }
+        break;
+      }
+      objectsA += tokenA == JsonScanner.Token.BEGIN_OBJECT ? 1 : 0;
+      objectsB += tokenB == JsonScanner.Token.BEGIN_OBJECT ? 1 : 0;
+      arraysA += tokenA == JsonScanner.Token.BEGIN_ARRAY ? 1 : 0;
+      arraysB += tokenB == JsonScanner.Token.BEGIN_ARRAY ? 1 : 0;
+      path.push(sizeA);
+      compareElement(tokenA, tokenB);
+      path.pop();
+      sizeA++;
+      sizeB++;
+    }
+    if (comparison.shouldStop()) {
+      comparison.commit();
+      return;
+    }
+
+    if (sizeA > 0 && sizeB > 0 && (sizeA != sizeB || objectsA != objectsB || arraysA != arraysB)) {
+      comparison.rollback(mark);
+      comparison.logInequality(Difference.Kind.LENGTH_MISMATCH, sizeA, sizeB);
+    } else {
+      comparison.commit();
+    }
+  }
+
+  private static JsonArrayNode readArray(Utf8Cursor cursor) throws IOException {
+    int from = cursor.tokenStart();
+    cursor.skipRest();
+    return LazyJsonNodes.of(new LazyArray(cursor.decode(from, cursor.position())));
+  }
+
+  private void compareElement(JsonScanner.Token tokenA, JsonScanner.Token tokenB)
+      throws IOException {
+    JsonChildren.Type typeA = childType(tokenA);
+    JsonChildren.Type typeB = childType(tokenB);
+    if (typeA == JsonChildren.Type.OBJECT && typeB == JsonChildren.Type.OBJECT) {
+      compareObject();
+    } else if (typeA == JsonChildren.Type.ARRAY && typeB == JsonChildren.Type.ARRAY) {
+      compareArray();
+    } else if (typeA == JsonChildren.Type.VALUE && typeB == JsonChildren.Type.VALUE) {
+      if (debugMode) {
+        LOGGER.debug("Checking array value: {}", path);
+      }
+      comparison.visitLeaf();
+      if (a.valueType() == b.valueType() && a.textEquals(b)) {
+        if (comparison.collectSuccess()) {
+          comparison.addSuccessMessage(numbers.valueOf(a.valueType(), a.text()));
+        }
+        return;
+      }
+      Object valueA = numbers.valueOf(a.valueType(), a.text());
+      Object valueB = numbers.valueOf(b.valueType(), b.text());
+      if (numbers.matches(valueA, valueB)) {
+        comparison.logSuccess(valueA);
+      } else {
+        comparison.logInequality(Difference.Kind.VALUE_MISMATCH, valueA, valueB);
+      }
+    } else {
+      a.skipValue(tokenA);
+      b.skipValue(tokenB);
+      comparison.visitLeaf();
+      comparison.logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+    }
+  }
+
+  private static LazyType typeOf(Utf8Cursor cursor, JsonScanner.Token token) {
+    switch (token) {
+      case BEGIN_OBJECT:
+        return LazyType.OBJECT;
+      case BEGIN_ARRAY:
+        return LazyType.ARRAY;
+      default:
+        return cursor.valueType();
+    }
+  }
+
+  private static JsonChildren.Type childType(JsonScanner.Token token) {
+    switch (token) {
+      case BEGIN_OBJECT:
+        return JsonChildren.Type.OBJECT;
+      case BEGIN_ARRAY:
+        return JsonChildren.Type.ARRAY;
+      default:
+        return JsonChildren.Type.VALUE;
+    }
+  }
+}
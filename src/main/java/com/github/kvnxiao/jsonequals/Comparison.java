@@ -0,0 +1,1230 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.BEGIN_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.END_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.ROOT_NAME;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import me.doubledutch.lazyjson.LazyType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The state of a single comparison run by a {@link JsonComparator}: the current path and the
+ * results collected so far. Instances are confined to one thread, while parallel comparisons use
+ * forks which are merged back in order. Inequalities are either collected, or delivered to a {@link
+ * DifferenceListener} as they are found; forks always collect their own, which are delivered once
+ * merged.
+ */
+final class Comparison {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JsonComparator.class);
+
+  /** The number of candidates sharing its hash which an unordered element is tried against. */
+  private static final int MAX_MATCHING_TRIALS = 16;
+
+  private final JsonComparator config;
+  private final List<String> successMessages;
+  private final List<Difference> differences;
+  private final DifferenceListener listener;
+  private final PathStack path;
+  private int successCount = 0;
+  private int inequalityCount = 0;
+  private boolean stopped = false;
+  private boolean cancelled = false;
+  /** The number of inequalities already delivered to the listener, and so no longer held. */
+  private int deliveredCount = 0;
+  /** The number of marks neither committed nor rolled back, while inequalities are held back. */
+  private int openMarks = 0;
+
+  // Counters reported to the metrics listener, which are cheap enough to keep unconditionally
+  private int objectCount = 0;
+  private int arrayCount = 0;
+  private int leafCount = 0;
+  private int maxDepth = 0;
+  private int prunedElements = 0;
+  private int ignoredSubtrees = 0;
+  private long pruneNanos = 0;
+
+  Comparison(JsonComparator config, DifferenceListener listener) {
+    this.config = config;
+    this.successMessages = new ArrayList<>();
+    this.differences = new ArrayList<>();
+    this.listener = listener;
+    this.path = new PathStack();
+  }
+
+  /** Creates a fork with the same settings and current path, but with its own results. */
+  private Comparison(Comparison parent) {
+    this.config = parent.config;
+    this.successMessages = new ArrayList<>();
+    this.differences = new ArrayList<>();
+    this.listener = null;
+    this.path = parent.path.copy();
+  }
+
+  /**
+   * Gets the path of the node currently being compared.
+   *
+   * @return The current path
+   */
+  PathStack path() {
+    return path;
+  }
+
+  /**
+   * Marks the results collected so far, so that any results collected after this point can be
+   * discarded with {@link #rollback(long)}. Until every open mark has been either committed or
+   * rolled back, inequalities are held back rather than delivered to the listener, so that no
+   * inequality which is later discarded is ever delivered.
+   *
+   * @return The mark, packing the number of inequalities and successful comparisons
+   */
+  long mark() {
+    openMarks++;
+    return ((long) inequalityCount << 32) | successCount;
+  }
+
+  /**
+   * Keeps the results collected since the last open mark. Once no mark is left open, the
+   * inequalities held back are delivered to the listener.
+   */
+  void commit() {
+    if (--openMarks > 0 || listener == null) {
+      return;
+    }
+    int delivered = 0;
+    while (delivered < differences.size() && !cancelled) {
+      deliver(differences.get(delivered++));
+    }
+    // Inequalities after a cancellation are dropped, as if the comparison had stopped before them
+    inequalityCount -= differences.size() - delivered;
+    differences.clear();
+  }
+
+  /**
+   * Discards the inequalities and successful comparisons collected since the last open mark, which
+   * is no longer open afterwards.
+   *
+   * @param mark The mark returned by {@link #mark()}
+   */
+  void rollback(long mark) {
+    openMarks--;
+    inequalityCount = (int) (mark >>> 32);
+    differences.subList(inequalityCount - deliveredCount, differences.size()).clear();
+    // Stopping at the inequality limit is reconsidered, as the count may now be below it
+    stopped = cancelled;
+    successCount = (int) mark;
+    // Success messages are always kept for the first successful comparisons
+    int successMessageCount =
+        config.successReporting == ReportingLevel.FULL
+            ? successCount
+            : config.successReporting == ReportingLevel.SAMPLE
+                ? Math.min(successCount, config.successSampleSize)
+                : 0;
+    successMessages.subList(successMessageCount, successMessages.size()).clear();
+  }
+
+  /**
+   * Builds the result of the nodes compared so far.
+   *
+   * @return The json comparison result
+   */
+  JsonCompareResult toResult() {
+    return JsonCompareResult.of(
+        inequalityCount == 0, successCount, successMessages, differences, inequalityCount, stopped);
+  }
+
+  /**
+   * Builds the counters and phase timings of the nodes compared so far.
+   *
+   * @param traverseNanos The time taken by the whole comparison, in nanoseconds
+   * @return The comparison stats
+   */
+  ComparisonStats toStats(long traverseNanos) {
+    return new ComparisonStats(
+        objectCount,
+        arrayCount,
+        leafCount,
+        maxDepth,
+        prunedElements,
+        ignoredSubtrees,
+        pruneNanos,
+        traverseNanos);
+  }
+
+  /**
+   * Compares two JSON objects, starting from the root level.
+   *
+   * @param a source JSON object
+   * @param b comparate JSON object
+   */
+  void compareNode(JsonObjectNode a, JsonObjectNode b) {
+    compareNode(a, b, ROOT_NAME);
+  }
+
+  /**
+   * Compares two JSON objects from the root level, skipping any pair of subtrees whose digests
+   * match.
+   *
+   * @param a source JSON object
+   * @param b comparate JSON object
+   * @param digestA The digest of the source JSON object
+   * @param digestB The digest of the comparate JSON object
+   */
+  void compareNode(
+      JsonObjectNode a, JsonObjectNode b, SubtreeDigest digestA, SubtreeDigest digestB) {
+    path.reset(ROOT_NAME);
+    compareNode(a, b, config.rules.root(), digestA, digestB);
+  }
+
+  /**
+   * Compares two JSON arrays, starting from the root level.
+   *
+   * @param a source JSON array
+   * @param b comparate JSON array
+   */
+  void compareNode(JsonArrayNode a, JsonArrayNode b) {
+    compareNode(a, b, ROOT_NAME);
+  }
+
+  /**
+   * Compares two JSON arrays from the root level, skipping any pair of subtrees whose digests
+   * match.
+   *
+   * @param a source JSON array
+   * @param b comparate JSON array
+   * @param digestA The digest of the source JSON array
+   * @param digestB The digest of the comparate JSON array
+   */
+  void compareNode(JsonArrayNode a, JsonArrayNode b, SubtreeDigest digestA, SubtreeDigest digestB) {
+    path.reset(ROOT_NAME);
+    compareNode(a, b, config.rules.root(), digestA, digestB);
+  }
+
+  /**
+   * Compares two JSON objects.
+   *
+   * @param a source JSON object
+   * @param b comparate JSON object
+   * @param currentPath The current JSON node path
+   */
+  void compareNode(JsonObjectNode a, JsonObjectNode b, String currentPath) {
+    path.reset(currentPath);
+    compareNode(a, b, config.rules.find(currentPath), null, null);
+  }
+
+  void compareNode(
+      JsonObjectNode a,
+      JsonObjectNode b,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    if (countIgnored(rules) || skipEqual(rules, digestA, digestB)) {
+      return;
+    }
+    visitObject();
+    compareMembers(a, b, rules, digestA, digestB);
+  }
+
+  /**
+   * Compares the fields of two JSON objects by merging their sorted key names, so that no set of
+   * key names is built unless it is reported. Unless key diffs are enabled, objects which do not
+   * have the same key names are reported as a whole, without comparing any of their fields;
+   * otherwise each removed and added field is reported on its own, and the common fields are
+   * compared as usual.
+   */
+  void compareMembers(
+      JsonObjectNode a,
+      JsonObjectNode b,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    String[] fieldsA = sortedKeys(a);
+    String[] fieldsB = sortedKeys(b);
+    if (!config.keyDiff) {
+      if (Arrays.equals(fieldsA, fieldsB)) {
+        compareFields(a, b, fieldsA, fieldsA.length, rules, digestA, digestB);
+      } else {
+        logInequality(Difference.Kind.KEYS_MISMATCH, a.keySet(), b.keySet());
+      }
+      return;
+    }
+
+    String[] common = fieldsA.length <= fieldsB.length ? fieldsA : fieldsB;
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < fieldsA.length || j < fieldsB.length) {
+      int order =
+          i == fieldsA.length ? 1 : j == fieldsB.length ? -1 : fieldsA[i].compareTo(fieldsB[j]);
+      if (order == 0) {
+        // Common fields are gathered in place, as they never overtake the merge
+        common[count++] = fieldsA[i];
+        i++;
+        j++;
+      } else if (order < 0) {
+        logFieldInequality(Difference.Kind.REMOVED_FIELD, a, fieldsA[i++], rules);
+      } else {
+        logFieldInequality(Difference.Kind.ADDED_FIELD, b, fieldsB[j++], rules);
+      }
+    }
+    compareFields(a, b, common, count, rules, digestA, digestB);
+  }
+
+  private void compareFields(
+      JsonObjectNode a,
+      JsonObjectNode b,
+      String[] fieldNames,
+      int count,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    if (isParallel(count)) {
+      forkJoin(
+          count,
+          (target, from, to) ->
+              target.compareFields(a, b, fieldNames, from, to, rules, digestA, digestB));
+    } else {
+      compareFields(a, b, fieldNames, 0, count, rules, digestA, digestB);
+    }
+  }
+
+  private static String[] sortedKeys(JsonObjectNode object) {
+    String[] keys = new String[object.length()];
+    int count = 0;
+    for (Iterator<String> iterator = object.keys(); iterator.hasNext(); ) {
+      keys[count++] = iterator.next();
+    }
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  private void logFieldInequality(
+      Difference.Kind kind, JsonObjectNode parent, String fieldName, PathTrie.Node rules) {
+    if (shouldStop() || isIgnored(rules == null ? null : rules.child(fieldName))) {
+      return;
+    }
+    Object value;
+    switch (parent.getType(fieldName)) {
+      case OBJECT:
+        value = parent.getObject(fieldName);
+        break;
+      case ARRAY:
+        value = parent.getArray(fieldName);
+        break;
+      default:
+        value = config.numbers.valueOf(parent, fieldName);
+        break;
+    }
+    path.push(fieldName);
+    if (kind == Difference.Kind.REMOVED_FIELD) {
+      logInequality(kind, value, null);
+    } else {
+      logInequality(kind, null, value);
+    }
+    path.pop();
+  }
+
+  private void compareFields(
+      JsonObjectNode a,
+      JsonObjectNode b,
+      String[] fieldNames,
+      int from,
+      int to,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    for (int i = from; i < to; i++) {
+      if (shouldStop()) {
+        return;
+      }
+      compareField(a, b, fieldNames[i], rules, digestA, digestB);
+    }
+  }
+
+  void compareField(
+      JsonObjectNode a,
+      JsonObjectNode b,
+      String fieldName,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    PathTrie.Node childRules = rules == null ? null : rules.child(fieldName);
+    SubtreeDigest childDigestA = digestA == null ? null : digestA.field(fieldName);
+    SubtreeDigest childDigestB = digestB == null ? null : digestB.field(fieldName);
+    if (skipEqual(childRules, childDigestA, childDigestB)) {
+      // Skipped before either child is materialized
+      return;
+    }
+    path.push(fieldName);
+    if (childIsObject(a, fieldName) && childIsObject(b, fieldName)) {
+      compareNode(
+          a.getObject(fieldName), b.getObject(fieldName), childRules, childDigestA, childDigestB);
+    } else if (childIsArray(a, fieldName) && childIsArray(b, fieldName)) {
+      compareNode(
+          a.getArray(fieldName), b.getArray(fieldName), childRules, childDigestA, childDigestB);
+    } else {
+      compareValues(a, b, fieldName, childRules);
+    }
+    path.pop();
+  }
+
+  /**
+   * Compares two JSON arrays.
+   *
+   * @param a source JSON array
+   * @param b comparate JSON array
+   * @param currentPath The current JSON node path
+   */
+  void compareNode(JsonArrayNode a, JsonArrayNode b, String currentPath) {
+    path.reset(currentPath);
+    compareNode(a, b, config.rules.find(currentPath), null, null);
+  }
+
+  void compareNode(
+      JsonArrayNode a,
+      JsonArrayNode b,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    if (countIgnored(rules) || skipEqual(rules, digestA, digestB)) {
+      return;
+    }
+    visitArray();
+
+    JsonChildren childrenA = getChildList(a);
+    JsonChildren childrenB = getChildList(b);
+    if (rules != null && rules.prunesElements()) {
+      long start = config.metrics != ComparisonMetrics.NONE ? System.nanoTime() : 0;
+      prune(childrenA, rules, "source");
+      prune(childrenB, rules, "comparate");
+      if (config.metrics != ComparisonMetrics.NONE) {
+        pruneNanos += System.nanoTime() - start;
+      }
+      // Pruning shifts the indices of the remaining elements away from those of their digests
+      digestA = null;
+      digestB = null;
+    }
+    if (rules != null && rules.getElementKey() != null) {
+      compareKeyed(childrenA, childrenB, rules);
+      return;
+    }
+    if (rules != null && rules.isUnordered()) {
+      compareUnordered(childrenA, childrenB, rules);
+      return;
+    }
+    SubtreeDigest elementDigestsA = digestA;
+    SubtreeDigest elementDigestsB = digestB;
+    if (!childrenA.isEmpty() && !childrenB.isEmpty()) {
+      if (childrenA.objectCount() == childrenB.objectCount()
+          && childrenA.arrayCount() == childrenB.arrayCount()
+          && childrenA.valueCount() == childrenB.valueCount()) {
+        if (isParallel(childrenA.size())) {
+          forkJoin(
+              childrenA.size(),
+              (target, from, to) ->
+                  target.compareElements(
+                      childrenA, childrenB, from, to, rules, elementDigestsA, elementDigestsB));
+        } else {
+          compareElements(
+              childrenA, childrenB, 0, childrenA.size(), rules, elementDigestsA, elementDigestsB);
+        }
+      } else if (!diffElements(childrenA, childrenB, rules)) {
+        logInequality(Difference.Kind.LENGTH_MISMATCH, childrenA.size(), childrenB.size());
+      }
+    }
+  }
+
+  private void compareElements(
+      JsonChildren childrenA,
+      JsonChildren childrenB,
+      int from,
+      int to,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    for (int i = from; i < to; i++) {
+      if (shouldStop()) {
+        return;
+      }
+      compareElement(
+          childrenA,
+          i,
+          childrenB,
+          i,
+          rules == null ? null : rules.element(i),
+          digestA == null ? null : digestA.element(i),
+          digestB == null ? null : digestB.element(i));
+    }
+  }
+
+  /**
+   * Compares the elements of two JSON arrays regardless of their order. Each element of the
+   * comparate is bucketed by its structural hash, then each element of the source is matched to an
+   * element of the comparate with the same hash, so that matching takes expected linear time rather
+   * than comparing every pair of elements. Matched elements are compared as usual, while the
+   * elements left without a match are reported as removed from the source or added to the
+   * comparate. Numbers compared within a tolerance all share a hash, so where several elements
+   * share a hash, the element is matched to the first of the first few of them it compares as equal
+   * to, if any; numbers themselves are instead sorted, and matched to the nearest number on either
+   * side which they compare as equal to.
+   */
+  private void compareUnordered(
+      JsonChildren childrenA, JsonChildren childrenB, PathTrie.Node rules) {
+    Map<Long, ArrayDeque<Integer>> unmatched = new HashMap<>();
+    TreeMap<Double, ArrayDeque<Integer>> unmatchedNumbers = new TreeMap<>();
+    for (int j = 0; j < childrenB.size(); j++) {
+      Double number = tolerantNumber(childrenB, j);
+      if (number != null) {
+        unmatchedNumbers.computeIfAbsent(number, value -> new ArrayDeque<>()).add(j);
+        continue;
+      }
+      unmatched
+          .computeIfAbsent(
+              ElementHash.of(childrenB, j, rules.element(j), config.numbers),
+              hash -> new ArrayDeque<>())
+          .add(j);
+    }
+
+    boolean[] matched = new boolean[childrenB.size()];
+    // Elements matching none of the candidates sharing their hash are only paired with the
+    // candidates left once every other element has been matched
+    List<Integer> deferred = new ArrayList<>();
+    List<ArrayDeque<Integer>> deferredCandidates = new ArrayList<>();
+    for (int i = 0; i < childrenA.size(); i++) {
+      if (shouldStop()) {
+        return;
+      }
+      PathTrie.Node childRules = rules.element(i);
+      Double number = tolerantNumber(childrenA, i);
+      if (number != null) {
+        Double nearest = nearestNumber(unmatchedNumbers, number, true);
+        if (nearest == null) {
+          deferred.add(i);
+          deferredCandidates.add(null);
+        } else {
+          compareNumber(childrenA, i, childrenB, unmatchedNumbers, nearest, matched, childRules);
+        }
+        continue;
+      }
+      ArrayDeque<Integer> candidates =
+          unmatched.get(ElementHash.of(childrenA, i, childRules, config.numbers));
+      if (candidates == null || candidates.size() <= 1) {
+        compareCandidate(childrenA, i, childrenB, candidates, matched, childRules);
+      } else if (!compareMatching(childrenA, i, childrenB, candidates, matched, childRules)) {
+        deferred.add(i);
+        deferredCandidates.add(candidates);
+      }
+    }
+    for (int k = 0; k < deferred.size(); k++) {
+      if (shouldStop()) {
+        return;
+      }
+      int i = deferred.get(k);
+      ArrayDeque<Integer> candidates = deferredCandidates.get(k);
+      if (candidates == null) {
+        // A number matching none of the numbers left is paired with the nearest of them
+        Double nearest = nearestNumber(unmatchedNumbers, tolerantNumber(childrenA, i), false);
+        compareNumber(
+            childrenA, i, childrenB, unmatchedNumbers, nearest, matched, rules.element(i));
+      } else {
+        compareCandidate(childrenA, i, childrenB, candidates, matched, rules.element(i));
+      }
+    }
+
+    for (int j = 0; j < childrenB.size() && !shouldStop(); j++) {
+      if (!matched[j]) {
+        path.push(j);
+        logInequality(Difference.Kind.ADDED_ELEMENT, null, childrenB.get(j));
+        path.pop();
+      }
+    }
+  }
+
+  /**
+   * Compares an element of the source with the first of the candidates sharing its hash, or reports
+   * it as removed if there are none left.
+   */
+  private void compareCandidate(
+      JsonChildren childrenA,
+      int i,
+      JsonChildren childrenB,
+      ArrayDeque<Integer> candidates,
+      boolean[] matched,
+      PathTrie.Node rules) {
+    if (candidates == null || candidates.isEmpty()) {
+      path.push(i);
+      logInequality(Difference.Kind.REMOVED_ELEMENT, childrenA.get(i), null);
+      path.pop();
+    } else {
+      int j = candidates.poll();
+      matched[j] = true;
+      compareElement(childrenA, i, childrenB, j, rules, null, null);
+    }
+  }
+
+  /**
+   * Compares an element of the source with the first of the candidates sharing its hash which it
+   * compares as equal to, trying each against a fork so that the results of candidates which do not
+   * match are discarded.
+   *
+   * @return true if a matching candidate was found and compared, false otherwise
+   */
+  private boolean compareMatching(
+      JsonChildren childrenA,
+      int i,
+      JsonChildren childrenB,
+      ArrayDeque<Integer> candidates,
+      boolean[] matched,
+      PathTrie.Node rules) {
+    int trials = 0;
+    for (Iterator<Integer> it = candidates.iterator();
+        it.hasNext() && trials++ < MAX_MATCHING_TRIALS; ) {
+      int j = it.next();
+      Comparison trial = new Comparison(this);
+      trial.compareElement(childrenA, i, childrenB, j, rules, null, null);
+      if (trial.inequalityCount == 0) {
+        it.remove();
+        matched[j] = true;
+        merge(trial);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets a primitive number of a JSON array which is compared within a tolerance, and so cannot be
+   * matched by its hash.
+   *
+   * @return The number, or null if the element is not such a number
+   */
+  private Double tolerantNumber(JsonChildren children, int index) {
+    Object value = children.getType(index) == JsonChildren.Type.VALUE ? children.get(index) : null;
+    return value instanceof Double && config.numbers.isTolerant() ? (Double) value : null;
+  }
+
+  /**
+   * Finds the unmatched number of the comparate nearest to the specified number on either side of
+   * it, preferring the nearer side.
+   *
+   * @param numbers The comparate indices of the unmatched numbers, by value
+   * @param number The number to match
+   * @param matching Whether only numbers which the number compares as equal to may be found
+   * @return The number found, or null if there is none
+   */
+  private Double nearestNumber(
+      TreeMap<Double, ArrayDeque<Integer>> numbers, double number, boolean matching) {
+    Double floor = numbers.floorKey(number);
+    Double ceiling = numbers.ceilingKey(number);
+    // Numbers farther away on the same side cannot compare as equal if the nearest does not
+    if (floor != null && matching && !config.numbers.matches(number, (double) floor)) {
+      floor = null;
+    }
+    if (ceiling != null && matching && !config.numbers.matches(number, (double) ceiling)) {
+      ceiling = null;
+    }
+    if (floor == null || ceiling == null) {
+      return floor != null ? floor : ceiling;
+    }
+    return number - floor <= ceiling - number ? floor : ceiling;
+  }
+
+  /**
+   * Compares a number of the source with the first unmatched occurrence of a number of the
+   * comparate, or reports it as removed if there is none.
+   */
+  private void compareNumber(
+      JsonChildren childrenA,
+      int i,
+      JsonChildren childrenB,
+      TreeMap<Double, ArrayDeque<Integer>> numbers,
+      Double number,
+      boolean[] matched,
+      PathTrie.Node rules) {
+    ArrayDeque<Integer> candidates = number == null ? null : numbers.get(number);
+    compareCandidate(childrenA, i, childrenB, candidates, matched, rules);
+    if (candidates != null && candidates.isEmpty()) {
+      numbers.remove(number);
+    }
+  }
+
+  /**
+   * Compares the elements of two JSON arrays of different lengths by a minimal diff of their
+   * structural hashes. Elements in the longest common subsequence are compared with one another,
+   * and within each run of deleted source elements and inserted comparate elements between them,
+   * elements of the same type are paired up in order as changed elements, with the rest reported as
+   * removed from the source or added to the comparate.
+   *
+   * @return false if array diffs are disabled or need more edits than allowed, in which case
+   *     nothing was compared
+   */
+  private boolean diffElements(
+      JsonChildren childrenA, JsonChildren childrenB, PathTrie.Node rules) {
+    if (config.maxArrayEdits == 0) {
+      return false;
+    }
+    int[] matches =
+        ArrayDiff.matches(hashes(childrenA, rules), hashes(childrenB, rules), config.maxArrayEdits);
+    if (matches == null) {
+      if (config.debugMode) {
+        LOGGER.debug("Array diff exceeds {} edits: {}", config.maxArrayEdits, path);
+      }
+      return false;
+    }
+
+    int i = 0;
+    int j = 0;
+    while (i < childrenA.size() || j < childrenB.size()) {
+      if (shouldStop()) {
+        return true;
+      }
+      if (i < childrenA.size() && matches[i] == j) {
+        compareElement(
+            childrenA, i, childrenB, j, rules == null ? null : rules.element(i), null, null);
+        i++;
+        j++;
+        continue;
+      }
+      int deletedTo = i;
+      while (deletedTo < childrenA.size() && matches[deletedTo] < 0) {
+        deletedTo++;
+      }
+      int insertedTo = deletedTo < childrenA.size() ? matches[deletedTo] : childrenB.size();
+      for (; i < deletedTo && !shouldStop(); i++) {
+        // Pair the deleted element with the next inserted element of the same type, if any
+        int changed = j;
+        while (changed < insertedTo && childrenB.getType(changed) != childrenA.getType(i)) {
+          changed++;
+        }
+        if (changed == insertedTo) {
+          path.push(i);
+          logInequality(Difference.Kind.REMOVED_ELEMENT, childrenA.get(i), null);
+          path.pop();
+          continue;
+        }
+        logAdded(childrenB, j, changed);
+        compareElement(
+            childrenA, i, childrenB, changed, rules == null ? null : rules.element(i), null, null);
+        j = changed + 1;
+      }
+      logAdded(childrenB, j, insertedTo);
+      i = deletedTo;
+      j = insertedTo;
+    }
+    return true;
+  }
+
+  private void logAdded(JsonChildren childrenB, int from, int to) {
+    for (int j = from; j < to && !shouldStop(); j++) {
+      path.push(j);
+      logInequality(Difference.Kind.ADDED_ELEMENT, null, childrenB.get(j));
+      path.pop();
+    }
+  }
+
+  private long[] hashes(JsonChildren children, PathTrie.Node rules) {
+    long[] hashes = new long[children.size()];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] =
+          ElementHash.of(children, i, rules == null ? null : rules.element(i), config.numbers);
+    }
+    return hashes;
+  }
+
+  /**
+   * Compares the elements of two JSON arrays by the key of each element. The comparate elements are
+   * indexed by key, then each keyed source element is compared directly with the comparate element
+   * holding the same key, while elements without a key, or with a key repeated within their array,
+   * are compared in order with the other unkeyed elements. Elements left without a match are
+   * reported as removed from the source or added to the comparate.
+   */
+  private void compareKeyed(JsonChildren childrenA, JsonChildren childrenB, PathTrie.Node rules) {
+    ElementKey elementKey = rules.getElementKey();
+    Map<Object, Integer> keyed = new HashMap<>();
+    List<Integer> unkeyed = new ArrayList<>();
+    for (int j = 0; j < childrenB.size(); j++) {
+      Object key = keyOf(childrenB, j, elementKey);
+      if (key == null || keyed.putIfAbsent(key, j) != null) {
+        unkeyed.add(j);
+      }
+    }
+
+    boolean[] matched = new boolean[childrenB.size()];
+    Set<Object> seen = new HashSet<>();
+    int nextUnkeyed = 0;
+    for (int i = 0; i < childrenA.size(); i++) {
+      if (shouldStop()) {
+        return;
+      }
+      Object key = keyOf(childrenA, i, elementKey);
+      Integer j;
+      if (key != null && seen.add(key)) {
+        j = keyed.get(key);
+      } else {
+        j = nextUnkeyed < unkeyed.size() ? unkeyed.get(nextUnkeyed++) : null;
+      }
+      if (j == null) {
+        path.push(i);
+        logInequality(Difference.Kind.REMOVED_ELEMENT, childrenA.get(i), null);
+        path.pop();
+      } else {
+        matched[j] = true;
+        compareElement(childrenA, i, childrenB, j, rules.element(i), null, null);
+      }
+    }
+
+    for (int j = 0; j < childrenB.size() && !shouldStop(); j++) {
+      if (!matched[j]) {
+        path.push(j);
+        logInequality(Difference.Kind.ADDED_ELEMENT, null, childrenB.get(j));
+        path.pop();
+      }
+    }
+  }
+
+  private static Object keyOf(JsonChildren children, int index, ElementKey elementKey) {
+    return children.getType(index) == JsonChildren.Type.OBJECT
+        ? elementKey.keyOf(children.getObjectNode(index))
+        : null;
+  }
+
+  /**
+   * Compares the element at index i of the source array with the element at index j of the
+   * comparate array, under the path of the source element.
+   */
+  private void compareElement(
+      JsonChildren childrenA,
+      int i,
+      JsonChildren childrenB,
+      int j,
+      PathTrie.Node rules,
+      SubtreeDigest digestA,
+      SubtreeDigest digestB) {
+    JsonChildren.Type typeA = childrenA.getType(i);
+    JsonChildren.Type typeB = childrenB.getType(j);
+    path.push(i);
+
+    if (typeA == JsonChildren.Type.OBJECT && typeB == JsonChildren.Type.OBJECT) {
+      // Compare child objects
+      compareNode(childrenA.getObjectNode(i), childrenB.getObjectNode(j), rules, digestA, digestB);
+
+    } else if (typeA == JsonChildren.Type.ARRAY && typeB == JsonChildren.Type.ARRAY) {
+      // Compare child arrays
+      compareNode(childrenA.getArrayNode(i), childrenB.getArrayNode(j), rules, digestA, digestB);
+
+    } else if (typeA == JsonChildren.Type.VALUE && typeB == JsonChildren.Type.VALUE) {
+      // Compare primitive values
+      visitLeaf();
+      if (config.debugMode) {
+        LOGGER.debug("Checking array value: {}", path);
+      }
+      if (!config.numbers.matches(childrenA.get(i), childrenB.get(j))) {
+        logInequality(Difference.Kind.VALUE_MISMATCH, childrenA.get(i), childrenB.get(j));
+      } else {
+        logSuccess(childrenA.get(i));
+      }
+    } else {
+      visitLeaf();
+      logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+    }
+    path.pop();
+  }
+
+  /**
+   * Compares the values at the end of the JSON hierarchy (i.e. a leaf node)
+   *
+   * @param a the value from the source
+   * @param b the value from the comparate
+   * @param fieldName the name of the JSON field which holds this value
+   * @param currentPath The current JSON node path
+   */
+  void compareValues(JsonObjectNode a, JsonObjectNode b, String fieldName, String currentPath) {
+    path.reset(currentPath);
+    compareValues(a, b, fieldName, config.rules.find(currentPath));
+  }
+
+  private void compareValues(
+      JsonObjectNode a, JsonObjectNode b, String fieldName, PathTrie.Node rules) {
+    if (countIgnored(rules)) {
+      return;
+    }
+    visitLeaf();
+
+    if (config.debugMode) {
+      LOGGER.debug("Checking leaf object: {}", path);
+    }
+
+    LazyType typeA = a.getType(fieldName);
+    LazyType typeB = b.getType(fieldName);
+    if (typeA != typeB) {
+      logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+    } else if (valuesMatch(a, b, fieldName, typeA)) {
+      logSuccess(a, fieldName);
+    } else {
+      // Only build the text of both values once they are known to differ
+      logInequality(Difference.Kind.VALUE_MISMATCH, a.getString(fieldName), b.getString(fieldName));
+    }
+  }
+
+  /**
+   * Compares two primitive values of the same type, reading numbers and booleans as primitives
+   * rather than as text.
+   */
+  private boolean valuesMatch(JsonObjectNode a, JsonObjectNode b, String fieldName, LazyType type) {
+    switch (type) {
+      case STRING:
+        return a.getString(fieldName).equals(b.getString(fieldName));
+      case INTEGER:
+        try {
+          return a.getLong(fieldName) == b.getLong(fieldName);
+        } catch (NumberFormatException e) {
+          // Integers beyond 64 bits are compared with arbitrary precision
+          return config.numbers.matches(
+              config.numbers.valueOf(a, fieldName), config.numbers.valueOf(b, fieldName));
+        }
+      case FLOAT:
+        if (config.numbers.isExact()) {
+          return config.numbers.matches(
+              config.numbers.valueOf(a, fieldName), config.numbers.valueOf(b, fieldName));
+        }
+        return config.numbers.matches(a.getDouble(fieldName), b.getDouble(fieldName));
+      case BOOLEAN:
+        return a.getBoolean(fieldName) == b.getBoolean(fieldName);
+      default:
+        return true;
+    }
+  }
+
+  private JsonChildren getChildList(JsonArrayNode parent) {
+    int length = parent.length();
+    JsonChildren jsonChildren = JsonChildren.create(length);
+    for (int i = 0; i < length; i++) {
+      switch (parent.getType(i)) {
+        case OBJECT:
+          jsonChildren.addChildObject(parent.getObject(i));
+          break;
+        case ARRAY:
+          jsonChildren.addChildArray(parent.getArray(i));
+          break;
+        default:
+          jsonChildren.addChildValue(config.numbers.valueOf(parent, i));
+          break;
+      }
+    }
+    return jsonChildren;
+  }
+
+  private void prune(JsonChildren children, PathTrie.Node rules, String identifier) {
+    children.removeIf(
+        i -> {
+          if (children.getType(i) == JsonChildren.Type.OBJECT
+              && isPruned(rules.element(i), children.getObjectNode(i))) {
+            if (config.debugMode) {
+              LOGGER.debug("Pruning {} {}{}{}{}", identifier, path, BEGIN_BRACKET, i, END_BRACKET);
+            }
+            prunedElements++;
+            return true;
+          }
+          return false;
+        });
+  }
+
+  static boolean isPruned(PathTrie.Node elementRules, JsonObjectNode element) {
+    if (elementRules != null) {
+      for (PrunePredicate predicate : elementRules.getPrunePredicates()) {
+        if (predicate.matches(element)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isParallel(int childCount) {
+    return config.pool != null && childCount >= config.parallelThreshold;
+  }
+
+  /**
+   * Compares a range of children in parallel, splitting it into ranges of at most the parallel
+   * threshold, each compared by a fork of this instance. The results of the forks are merged back
+   * into this instance in order.
+   */
+  private void forkJoin(int childCount, RangeComparison comparison) {
+    RangeTask task = new RangeTask(this, comparison, 0, childCount);
+    merge(ForkJoinTask.inForkJoinPool() ? task.invoke() : config.pool.invoke(task));
+  }
+
+  /** Appends the results of a fork which compared the children following those compared here. */
+  private void merge(Comparison fork) {
+    successCount += fork.successCount;
+    objectCount += fork.objectCount;
+    arrayCount += fork.arrayCount;
+    leafCount += fork.leafCount;
+    maxDepth = Math.max(maxDepth, fork.maxDepth);
+    prunedElements += fork.prunedElements;
+    ignoredSubtrees += fork.ignoredSubtrees;
+    pruneNanos += fork.pruneNanos;
+    for (String successMessage : fork.successMessages) {
+      if (config.successReporting == ReportingLevel.FULL
+          || (config.successReporting == ReportingLevel.SAMPLE
+              && successMessages.size() < config.successSampleSize)) {
+        successMessages.add(successMessage);
+      }
+    }
+    for (Difference difference : fork.differences) {
+      if (inequalityCount >= config.maxInequalities || stopped) {
+        stopped = true;
+        break;
+      }
+      report(difference);
+    }
+    stopped |= fork.stopped;
+  }
+
+  /**
+   * Checks whether the inequality limit has been reached, in which case the traversal should not
+   * visit any further nodes.
+   */
+  boolean shouldStop() {
+    if (inequalityCount >= config.maxInequalities) {
+      stopped = true;
+    }
+    return stopped;
+  }
+
+  /** A comparison of the children within a range, run against a fork of this instance. */
+  private interface RangeComparison {
+    void compare(Comparison target, int from, int to);
+  }
+
+  /** A task comparing a range of children, returning the fork holding the results. */
+  private static final class RangeTask extends RecursiveTask<Comparison> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Comparison parent;
+    private final RangeComparison comparison;
+    private final int from;
+    private final int to;
+
+    private RangeTask(Comparison parent, RangeComparison comparison, int from, int to) {
+      this.parent = parent;
+      this.comparison = comparison;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Comparison compute() {
+      if (to - from <= parent.config.parallelThreshold) {
+        Comparison fork = new Comparison(parent);
+        comparison.compare(fork, from, to);
+        return fork;
+      }
+      int mid = (from + to) >>> 1;
+      RangeTask left = new RangeTask(parent, comparison, from, mid);
+      RangeTask right = new RangeTask(parent, comparison, mid, to);
+      invokeAll(left, right);
+      Comparison result = left.join();
+      result.merge(right.join());
+      return result;
+    }
+  }
+
+  /**
+   * Checks whether the removed and added fields of JSON objects are reported one by one.
+   *
+   * @return true if key diffs are enabled, false otherwise
+   */
+  boolean diffsKeys() {
+    return config.keyDiff;
+  }
+
+  /**
+   * Checks whether JSON arrays of different lengths are compared by a minimal diff of their
+   * elements, which needs both arrays as a whole.
+   *
+   * @return true if array diffs are enabled, false otherwise
+   */
+  boolean diffsArrays() {
+    return config.maxArrayEdits > 0;
+  }
+
+  static boolean isIgnored(PathTrie.Node rules) {
+    return rules != null && rules.isIgnored();
+  }
+
+  /**
+   * Checks whether the current node is ignored, counting it as an ignored subtree if so.
+   *
+   * @param rules The rules for the current node
+   * @return true if the node is ignored, false otherwise
+   */
+  boolean countIgnored(PathTrie.Node rules) {
+    if (isIgnored(rules)) {
+      ignoredSubtrees++;
+      return true;
+    }
+    return false;
+  }
+
+  /** Counts a visit of a pair of JSON objects at the current path. */
+  void visitObject() {
+    objectCount++;
+    visitDepth();
+  }
+
+  /** Counts a visit of a pair of JSON arrays at the current path. */
+  void visitArray() {
+    arrayCount++;
+    visitDepth();
+  }
+
+  /** Counts a visit of a pair of nodes compared as values at the current path. */
+  void visitLeaf() {
+    leafCount++;
+    visitDepth();
+  }
+
+  private void visitDepth() {
+    if (path.depth() > maxDepth) {
+      maxDepth = path.depth();
+    }
+  }
+
+  /**
+   * Checks whether two subtrees can be skipped because their raw text is identical or, with {@link
+   * JsonComparator.Builder#withSubtreeDigests()}, because their digests match, counting the
+   * successful comparisons of their leaf values. Subtrees are only skipped where no rules apply, so
+   * that the success count is the same as for a full traversal, and where no success messages would
+   * be kept.
+   */
+  private boolean skipEqual(PathTrie.Node rules, SubtreeDigest digestA, SubtreeDigest digestB) {
+    if (rules != null
+        || !(config.subtreeDigests
+            ? SubtreeDigest.matches(digestA, digestB)
+            : SubtreeDigest.sameSpan(digestA, digestB))) {
+      return false;
+    }
+    boolean keepsMessages =
+        config.successReporting == ReportingLevel.FULL
+            || (config.successReporting == ReportingLevel.SAMPLE
+                && successMessages.size() < config.successSampleSize);
+    if (keepsMessages) {
+      return false;
+    }
+    successCount += digestA.leafCount();
+    return true;
+  }
+
+  /**
+   * Counts a successful comparison and checks whether its success message should be kept, so that
+   * the message is only built when needed.
+   *
+   * @return true if the success message should be added with {@link #addSuccessMessage(Object)}
+   */
+  boolean collectSuccess() {
+    successCount++;
+    switch (config.successReporting) {
+      case FULL:
+        return true;
+      case SAMPLE:
+        return successMessages.size() < config.successSampleSize;
+      default:
+        return false;
+    }
+  }
+
+  void logSuccess(Object value) {
+    if (collectSuccess()) {
+      addSuccessMessage(value);
+    }
+  }
+
+  /**
+   * Adds the success message of a successful comparison already counted by {@link
+   * #collectSuccess()}.
+   *
+   * @param value The value compared at the current path
+   */
+  void addSuccessMessage(Object value) {
+    successMessages.add(path + "==" + value);
+  }
+
+  private void logSuccess(JsonObjectNode node, String fieldName) {
+    if (collectSuccess()) {
+      successMessages.add(path + "==" + node.getString(fieldName));
+    }
+  }
+
+  void logInequality(Difference.Kind kind, Object a, Object b) {
+    report(Difference.of(kind, path.toSegments(), a, b));
+  }
+
+  /**
+   * Delivers an inequality to the listener, or collects it if there is none or if it is held back
+   * by an open mark.
+   */
+  private void report(Difference difference) {
+    inequalityCount++;
+    if (listener == null || openMarks > 0) {
+      differences.add(difference);
+    } else {
+      deliver(difference);
+    }
+  }
+
+  private void deliver(Difference difference) {
+    deliveredCount++;
+    if (!listener.onDifference(difference)) {
+      cancelled = true;
+      stopped = true;
+    }
+  }
+
+  private static boolean childIsObject(JsonObjectNode parent, String fieldName) {
+    return parent.getType(fieldName) == LazyType.OBJECT;
+  }
+
+  private static boolean childIsObject(JsonArrayNode parent, int index) {
+    return parent.getType(index) == LazyType.OBJECT;
+  }
+
+  private static boolean childIsArray(JsonObjectNode parent, String fieldName) {
+    return parent.getType(fieldName) == LazyType.ARRAY;
+  }
+
+  private static boolean childIsArray(JsonArrayNode parent, int index) {
+    return parent.getType(index) == LazyType.ARRAY;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/**
+ * A listener receiving the measurements of a {@link JsonComparator}: the time taken to parse each
+ * JSON document with {@link JsonComparator#parse(String)}, and the counters and phase timings of
+ * each comparison. Listeners are called on the thread which ran the parse or comparison, so a
+ * listener shared by a comparator used from many threads must be thread-safe.
+ *
+ * <p>Comparators use {@link #NONE} unless configured otherwise, in which case no timings are taken
+ * and no measurements are built.
+ */
+public interface ComparisonMetrics {
+
+  /** A listener which discards every measurement. */
+  ComparisonMetrics NONE = new ComparisonMetrics() {};
+
+  /**
+   * Called after a JSON document was parsed.
+   *
+   * @param nanos The time taken to parse the document, in nanoseconds
+   */
+  default void onParse(long nanos) {}
+
+  /**
+   * Called after two JSON documents were compared.
+   *
+   * @param stats The counters and phase timings of the comparison
+   */
+  default void onComparison(ComparisonStats stats) {}
+}
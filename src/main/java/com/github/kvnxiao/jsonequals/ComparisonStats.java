@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/**
+ * The counters and phase timings of a single comparison, as reported to {@link ComparisonMetrics}.
+ * Subtrees skipped with {@link JsonComparator.Builder#withSubtreeDigests()} or {@link
+ * JsonComparator.Builder#withRawSpans()} are not visited, and so are not counted.
+ */
+public final class ComparisonStats {
+
+  private final int objectCount;
+  private final int arrayCount;
+  private final int leafCount;
+  private final int maxDepth;
+  private final int prunedElements;
+  private final int ignoredSubtrees;
+  private final long pruneNanos;
+  private final long traverseNanos;
+
+  ComparisonStats(
+      int objectCount,
+      int arrayCount,
+      int leafCount,
+      int maxDepth,
+      int prunedElements,
+      int ignoredSubtrees,
+      long pruneNanos,
+      long traverseNanos) {
+    this.objectCount = objectCount;
+    this.arrayCount = arrayCount;
+    this.leafCount = leafCount;
+    this.maxDepth = maxDepth;
+    this.prunedElements = prunedElements;
+    this.ignoredSubtrees = ignoredSubtrees;
+    this.pruneNanos = pruneNanos;
+    this.traverseNanos = traverseNanos;
+  }
+
+  /**
+   * Gets the number of pairs of nodes visited, which is the sum of the pairs of objects, arrays and
+   * leaves visited.
+   *
+   * @return The number of pairs of nodes visited
+   */
+  public int getNodesVisited() {
+    return objectCount + arrayCount + leafCount;
+  }
+
+  /**
+   * Gets the number of pairs of JSON objects visited.
+   *
+   * @return The number of pairs of JSON objects
+   */
+  public int getObjectCount() {
+    return objectCount;
+  }
+
+  /**
+   * Gets the number of pairs of JSON arrays visited.
+   *
+   * @return The number of pairs of JSON arrays
+   */
+  public int getArrayCount() {
+    return arrayCount;
+  }
+
+  /**
+   * Gets the number of pairs of nodes compared as values: primitive values, and nodes whose types
+   * differ.
+   *
+   * @return The number of pairs of leaves
+   */
+  public int getLeafCount() {
+    return leafCount;
+  }
+
+  /**
+   * Gets the depth of the deepest node visited, where the root element has a depth of 0.
+   *
+   * @return The maximum depth
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Gets the number of JSON array elements pruned from either side before comparison.
+   *
+   * @return The number of pruned elements
+   */
+  public int getPrunedElements() {
+    return prunedElements;
+  }
+
+  /**
+   * Gets the number of pairs of nodes left unvisited because their path is ignored.
+   *
+   * @return The number of ignored subtrees
+   */
+  public int getIgnoredSubtrees() {
+    return ignoredSubtrees;
+  }
+
+  /**
+   * Gets the time spent pruning JSON array elements, which is part of the traversal time.
+   *
+   * @return The prune time in nanoseconds
+   */
+  public long getPruneNanos() {
+    return pruneNanos;
+  }
+
+  /**
+   * Gets the time spent traversing and comparing both JSON documents, including pruning.
+   *
+   * @return The traversal time in nanoseconds
+   */
+  public long getTraverseNanos() {
+    return traverseNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "ComparisonStats{"
+        + "nodesVisited="
+        + getNodesVisited()
+        + ", objects="
+        + objectCount
+        + ", arrays="
+        + arrayCount
+        + ", leaves="
+        + leafCount
+        + ", maxDepth="
+        + maxDepth
+        + ", prunedElements="
+        + prunedElements
+        + ", ignoredSubtrees="
+        + ignoredSubtrees
+        + ", pruneNanos="
+        + pruneNanos
+        + ", traverseNanos="
+        + traverseNanos
+        + '}';
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.BEGIN_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.END_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.NODE_SEPARATOR;
+import static com.github.kvnxiao.jsonequals.Constants.ROOT_NAME;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single inequality found while comparing two JSON elements. The path and the values involved are
+ * kept in their raw form, and are only rendered into a message by {@link #getMessage()}.
+ */
+public final class Difference {
+
+  /** Enum which specifies the kind of inequality found. */
+  public enum Kind {
+    /** Two leaf values of the same type were not equal. */
+    VALUE_MISMATCH,
+    /** Two JSON nodes at the same path were not of the same type. */
+    TYPE_MISMATCH,
+    /** Two JSON objects did not have the same set of child key names. */
+    KEYS_MISMATCH,
+    /** Two JSON arrays did not have the same number of elements. */
+    LENGTH_MISMATCH,
+    /** An element of the source JSON array had no matching element in the comparate. */
+    REMOVED_ELEMENT,
+    /** An element of the comparate JSON array had no matching element in the source. */
+    ADDED_ELEMENT,
+    /** A field of the source JSON object was not present in the comparate. */
+    REMOVED_FIELD,
+    /** A field of the comparate JSON object was not present in the source. */
+    ADDED_FIELD,
+    /** A free-form inequality message, held as the expected value. */
+    OTHER
+  }
+
+  private static final Object[] NO_SEGMENTS = new Object[0];
+
+  private final Kind kind;
+  private final Object[] path;
+  private final Object expected;
+  private final Object actual;
+
+  private Difference(Kind kind, Object[] path, Object expected, Object actual) {
+    this.kind = kind;
+    this.path = path;
+    this.expected = expected;
+    this.actual = actual;
+  }
+
+  /**
+   * Creates a new Difference.
+   *
+   * @param kind The kind of inequality
+   * @param path The path segments of the JSON node, excluding the root: a String for each child key
+   *     and an Integer for each array index
+   * @param expected The value found in the source
+   * @param actual The value found in the comparate
+   * @return A new Difference instance
+   */
+  public static Difference of(Kind kind, Object[] path, Object expected, Object actual) {
+    return new Difference(kind, path, expected, actual);
+  }
+
+  /**
+   * Creates a new Difference holding a free-form message.
+   *
+   * @param message The inequality message
+   * @return A new Difference instance of kind {@link Kind#OTHER}
+   */
+  public static Difference ofMessage(String message) {
+    return new Difference(Kind.OTHER, NO_SEGMENTS, message, null);
+  }
+
+  /**
+   * Gets the kind of this inequality.
+   *
+   * @return The kind of inequality
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Gets the path segments of the JSON node where this inequality was found, excluding the root.
+   *
+   * @return An unmodifiable list of path segments: String keys and Integer array indices
+   */
+  public List<Object> getPathSegments() {
+    return Collections.unmodifiableList(Arrays.asList(path));
+  }
+
+  /**
+   * Gets the dot-notated path of the JSON node where this inequality was found.
+   *
+   * @return The JSON node path, e.g. {@code $.data[3].id}
+   */
+  public String getPath() {
+    return renderPath(path);
+  }
+
+  /**
+   * Gets the value found in the source. Depending on the kind, this is a leaf value, a type, a set
+   * of key names, an array length, an array element or a field value, or null for an added array
+   * element or field.
+   *
+   * @return The value found in the source
+   */
+  public Object getExpected() {
+    return expected;
+  }
+
+  /**
+   * Gets the value found in the comparate. Depending on the kind, this is a leaf value, a type, a
+   * set of key names, an array length, an array element or a field value, or null for a removed
+   * array element or field.
+   *
+   * @return The value found in the comparate
+   */
+  public Object getActual() {
+    return actual;
+  }
+
+  /**
+   * Renders this inequality into a human-readable message.
+   *
+   * @return The inequality message
+   */
+  public String getMessage() {
+    // Array elements and object fields have always been reported in different words
+    boolean element = path.length > 0 && path[path.length - 1] instanceof Integer;
+    switch (kind) {
+      case VALUE_MISMATCH:
+        if (element) {
+          return renderPath(Arrays.copyOf(path, path.length - 1))
+              + " JSON array value expected to be "
+              + expected
+              + " but got "
+              + actual;
+        }
+        return getPath() + " values were not the same! Expected " + expected + " but got " + actual;
+      case TYPE_MISMATCH:
+        if (element) {
+          return getPath()
+              + " types were not the same! Expected "
+              + expected
+              + " but got "
+              + actual;
+        }
+        return getPath()
+            + " were not of the same type! Expected type "
+            + expected
+            + " but got type "
+            + actual;
+      case KEYS_MISMATCH:
+        return "JSON objects do not have the same child key names! " + expected + " vs. " + actual;
+      case LENGTH_MISMATCH:
+        return getPath() + " JSON array not equal in length! " + expected + " vs " + actual;
+      case REMOVED_ELEMENT:
+        return getPath() + " JSON array element was removed! Expected " + expected;
+      case ADDED_ELEMENT:
+        return getPath() + " JSON array element was added! Got " + actual;
+      case REMOVED_FIELD:
+        return getPath() + " JSON object field was removed! Expected " + expected;
+      case ADDED_FIELD:
+        return getPath() + " JSON object field was added! Got " + actual;
+      default:
+        return String.valueOf(expected);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getMessage();
+  }
+
+  /**
+   * Renders path segments into a dot-notated JSON node path.
+   *
+   * @param path The path segments, excluding the root
+   * @return The JSON node path
+   */
+  static String renderPath(Object[] path) {
+    StringBuilder builder = new StringBuilder(ROOT_NAME);
+    for (Object segment : path) {
+      if (segment instanceof Integer) {
+        builder.append(BEGIN_BRACKET).append(segment).append(END_BRACKET);
+      } else {
+        builder.append(NODE_SEPARATOR).append(segment);
+      }
+    }
+    return builder.toString();
+  }
+}
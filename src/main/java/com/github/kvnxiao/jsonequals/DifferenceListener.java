@@ -0,0 +1,43 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/**
+ * A callback receiving each inequality as soon as it is found, instead of collecting every
+ * inequality into the {@link JsonCompareResult}. Differences delivered to a listener are counted
+ * but not kept, so that comparing two documents with many differences takes constant memory; the
+ * listener may also cancel the comparison at any point.
+ *
+ * <p>The listener is called on the thread running the comparison. With a parallel comparison, the
+ * differences found by each task are delivered in order once the task is merged back, so a
+ * cancellation only takes effect between tasks. With a comparison of streams, the inequalities
+ * found within a JSON object or array are held back until the object or array has been read whole,
+ * as they are discarded in favour of a single {@link Difference.Kind#KEYS_MISMATCH} or {@link
+ * Difference.Kind#LENGTH_MISMATCH} should it turn out to differ as a whole; the listener only ever
+ * receives the inequalities a comparison of trees would report.
+ */
+@FunctionalInterface
+public interface DifferenceListener {
+
+  /**
+   * Called as each inequality is found.
+   *
+   * @param difference The inequality found
+   * @return true to continue the comparison, or false to cancel it, in which case no further nodes
+   *     are visited and the result is marked as truncated
+   */
+  boolean onDifference(Difference difference);
+}
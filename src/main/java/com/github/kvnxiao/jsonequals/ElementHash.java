@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.SubtreeDigest.hashString;
+import static com.github.kvnxiao.jsonequals.SubtreeDigest.mix;
+
+import java.util.Iterator;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * Structural hashes of JSON array elements which follow the comparison rules below them: ignored
+ * values and pruned array elements do not contribute to the hash, and the elements of unordered or
+ * keyed arrays are hashed regardless of their order. Two elements which compare as equal under the
+ * same rules therefore have the same hash, so elements can be matched by their hash alone.
+ */
+final class ElementHash {
+
+  private static final long OBJECT_SEED = 0x3c6ef372fe94f82bL;
+  private static final long ARRAY_SEED = 0xa54ff53a5f1d36f1L;
+  private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+  private ElementHash() {}
+
+  /**
+   * Computes the hash of a JSON array element.
+   *
+   * @param children The elements of the JSON array
+   * @param index The index of the element
+   * @param rules The rules for the element, may be null
+   * @param numbers The tolerance used to compare numbers
+   * @return The hash of the element
+   */
+  static long of(JsonChildren children, int index, PathTrie.Node rules, NumericTolerance numbers) {
+    switch (children.getType(index)) {
+      case OBJECT:
+        return of(children.getObjectNode(index), rules, numbers);
+      case ARRAY:
+        return of(children.getArrayNode(index), rules, numbers);
+      default:
+        return ofValue(numbers.hashKey(children.get(index)));
+    }
+  }
+
+  private static long of(JsonObjectNode object, PathTrie.Node rules, NumericTolerance numbers) {
+    long sum = 0;
+    int count = 0;
+    for (Iterator<String> keys = object.keys(); keys.hasNext(); ) {
+      String key = keys.next();
+      PathTrie.Node childRules = rules == null ? null : rules.child(key);
+      long valueHash = 0;
+      // Ignored fields must still be present on both sides, so only their values are left out
+      if (!Comparison.isIgnored(childRules)) {
+        LazyType type = object.getType(key);
+        if (type == LazyType.OBJECT) {
+          valueHash = of(object.getObject(key), childRules, numbers);
+        } else if (type == LazyType.ARRAY) {
+          valueHash = of(object.getArray(key), childRules, numbers);
+        } else {
+          valueHash = ofValue(numbers.hashKey(numbers.valueOf(object, key)));
+        }
+      }
+      sum += mix(hashString(key) * MULTIPLIER + valueHash);
+      count++;
+    }
+    return mix(OBJECT_SEED + sum + count);
+  }
+
+  private static long of(JsonArrayNode array, PathTrie.Node rules, NumericTolerance numbers) {
+    boolean prunes = rules != null && rules.prunesElements();
+    boolean unordered = rules != null && (rules.isUnordered() || rules.getElementKey() != null);
+    long hash = ARRAY_SEED;
+    int index = 0;
+    for (int i = 0; i < array.length(); i++) {
+      LazyType type = array.getType(i);
+      long elementHash;
+      if (type == LazyType.OBJECT) {
+        JsonObjectNode element = array.getObject(i);
+        if (prunes && Comparison.isPruned(rules.element(i), element)) {
+          continue;
+        }
+        elementHash = of(element, rules == null ? null : rules.element(index), numbers);
+      } else if (type == LazyType.ARRAY) {
+        elementHash = of(array.getArray(i), rules == null ? null : rules.element(index), numbers);
+      } else {
+        elementHash = ofValue(numbers.hashKey(numbers.valueOf(array, i)));
+      }
+      hash = unordered ? hash + mix(elementHash) : hash * MULTIPLIER + elementHash;
+      index++;
+    }
+    return mix(hash + index);
+  }
+
+  private static long ofValue(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      return mix(hashString((String) value) + LazyType.STRING.ordinal());
+    }
+    return mix(value.hashCode() * MULTIPLIER + value.getClass().getName().hashCode());
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.SEPARATOR_REGEX;
+
+import java.math.BigInteger;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A compiled identity key of the elements of a JSON array, reading the field at a given path of an
+ * array element (JSON object). Elements of the source and comparate arrays with equal keys are
+ * matched to one another and compared directly, regardless of their indices.
+ *
+ * <p>The field path is split once at compile time, in the same format as the field path of a {@link
+ * PrunePredicate}.
+ */
+final class ElementKey {
+
+  private final String[] fieldPath;
+
+  private ElementKey(String[] fieldPath) {
+    this.fieldPath = fieldPath;
+  }
+
+  /**
+   * Creates a new ElementKey.
+   *
+   * @param fieldPath The dot-notated path of the key field, relative to the array element
+   * @return A new ElementKey instance
+   */
+  static ElementKey of(String fieldPath) {
+    return new ElementKey(fieldPath.split(SEPARATOR_REGEX));
+  }
+
+  /**
+   * Reads the key of the provided array element, from any parser backend.
+   *
+   * @param element The JSON object array element to read
+   * @return The key as a String, Long, BigInteger, Double or Boolean, or null if the element has no
+   *     primitive, non-null value at the key's path
+   */
+  Object keyOf(JsonObjectNode element) {
+    JsonObjectNode currentNode = element;
+    for (int i = 0; i < fieldPath.length - 1; i++) {
+      if (currentNode.has(fieldPath[i]) && currentNode.getType(fieldPath[i]) == LazyType.OBJECT) {
+        currentNode = currentNode.getObject(fieldPath[i]);
+      } else {
+        return null;
+      }
+    }
+    String fieldName = fieldPath[fieldPath.length - 1];
+    if (!currentNode.has(fieldName)) {
+      return null;
+    }
+    switch (currentNode.getType(fieldName)) {
+      case STRING:
+        return currentNode.getString(fieldName);
+      case INTEGER:
+        try {
+          return currentNode.getLong(fieldName);
+        } catch (NumberFormatException e) {
+          return new BigInteger(currentNode.getString(fieldName));
+        }
+      case BOOLEAN:
+        return currentNode.getBoolean(fieldName);
+      case FLOAT:
+        return currentNode.getDouble(fieldName);
+      default:
+        return null;
+    }
+  }
+}
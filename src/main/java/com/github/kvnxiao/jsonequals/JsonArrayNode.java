@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A JSON array as seen by the comparator, independently of the parser which produced it. Elements
+ * holding JSON objects or arrays are accessed as nodes of their own, while primitive values are
+ * read through their parent array.
+ *
+ * @see JsonObjectNode
+ */
+public interface JsonArrayNode {
+
+  /**
+   * Gets the number of elements of this JSON array.
+   *
+   * @return The number of elements
+   */
+  int length();
+
+  /**
+   * Gets the type of an element.
+   *
+   * @param index The index of the element
+   * @return The type of the element
+   */
+  LazyType getType(int index);
+
+  /**
+   * Gets the JSON object at an index.
+   *
+   * @param index The index of the element
+   * @return The JSON object
+   */
+  JsonObjectNode getObject(int index);
+
+  /**
+   * Gets the JSON array at an index.
+   *
+   * @param index The index of the element
+   * @return The JSON array
+   */
+  JsonArrayNode getArray(int index);
+
+  /**
+   * Gets the text of the primitive value at an index: the unescaped content of a string, or the
+   * literal text of a number or boolean.
+   *
+   * @param index The index of the element
+   * @return The text of the value, or null if the value is null
+   */
+  String getString(int index);
+
+  /**
+   * Gets the integer at an index.
+   *
+   * @param index The index of the element
+   * @return The integer value
+   * @throws NumberFormatException if the integer does not fit in a long
+   */
+  long getLong(int index);
+
+  /**
+   * Gets the number at an index as a double.
+   *
+   * @param index The index of the element
+   * @return The double value
+   */
+  double getDouble(int index);
+
+  /**
+   * Gets the boolean at an index.
+   *
+   * @param index The index of the element
+   * @return The boolean value
+   */
+  boolean getBoolean(int index);
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/**
+ * A parser backend turning raw JSON text into a {@link JsonRoot}, used by {@link
+ * JsonComparator#parse(String)}. Backends can be swapped per workload and measured side by side
+ * with {@link ComparisonMetrics#onParse(long)}; a comparison may also mix roots from different
+ * backends.
+ */
+@FunctionalInterface
+public interface JsonBackend {
+
+  /** The default backend, parsing JSON text lazily with LazyJSON. */
+  JsonBackend LAZY_JSON = JsonRoot::from;
+
+  /**
+   * Parses raw JSON text.
+   *
+   * @param raw The raw JSON string to parse
+   * @return A new JsonRoot instance
+   */
+  JsonRoot parse(String raw);
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * A class used to compare many pairs of JSON elements asynchronously, sharing the same {@link
+ * JsonComparator}. Instances are immutable and may be shared between threads.
+ */
+public final class JsonBatch {
+
+  private final JsonComparator comparator;
+  private final Executor executor;
+
+  private JsonBatch(JsonComparator comparator, Executor executor) {
+    this.comparator = comparator;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a new JsonBatch with the specified fields to ignore and prune, running comparisons on
+   * the {@link #defaultExecutor()}.
+   *
+   * @param ignoreFields Optional JSON fields to ignore from the comparisons
+   * @param pruneFields Optional JSON fields to prune before the comparisons
+   * @return A new JsonBatch instance
+   */
+  public static JsonBatch of(Set<String> ignoreFields, Map<String, String> pruneFields) {
+    return of(
+        JsonComparator.builder()
+            .withIgnoreFields(ignoreFields)
+            .withPruneFields(pruneFields)
+            .build());
+  }
+
+  /**
+   * Creates a new JsonBatch running every comparison with the specified comparator, on the {@link
+   * #defaultExecutor()}.
+   *
+   * @param comparator The comparator to share between comparisons
+   * @return A new JsonBatch instance
+   */
+  public static JsonBatch of(JsonComparator comparator) {
+    return new JsonBatch(comparator, defaultExecutor());
+  }
+
+  /**
+   * Returns a copy of this JsonBatch running comparisons on the specified executor.
+   *
+   * @param executor The executor to run comparisons on
+   * @return A new JsonBatch instance
+   */
+  public JsonBatch withExecutor(Executor executor) {
+    return new JsonBatch(comparator, executor);
+  }
+
+  /**
+   * Returns a copy of this JsonBatch where each comparison stops after the specified number of
+   * inequalities.
+   *
+   * @param maxInequalities The maximum number of inequalities to find per comparison
+   * @return A new JsonBatch instance
+   * @see JsonComparator.Builder#withMaxInequalities(int)
+   */
+  public JsonBatch withMaxInequalities(int maxInequalities) {
+    return new JsonBatch(
+        comparator.toBuilder().withMaxInequalities(maxInequalities).build(), executor);
+  }
+
+  /**
+   * Compares two JsonRoots asynchronously.
+   *
+   * @param source The source JsonRoot
+   * @param comparate The JsonRoot to compare to
+   * @return A future completed with the json comparison result, or with null if both root elements
+   *     are not of the same type
+   */
+  public CompletableFuture<JsonCompareResult> compareAsync(JsonRoot source, JsonRoot comparate) {
+    return CompletableFuture.supplyAsync(() -> comparator.compare(source, comparate), executor);
+  }
+
+  /**
+   * Compares every pair of JsonRoots asynchronously.
+   *
+   * @param pairs The pairs to compare
+   * @return The futures of the json comparison results, in the same order as the pairs
+   */
+  public List<CompletableFuture<JsonCompareResult>> compareAll(Collection<JsonPair> pairs) {
+    List<CompletableFuture<JsonCompareResult>> results = new ArrayList<>(pairs.size());
+    for (JsonPair pair : pairs) {
+      results.add(compareAsync(pair.getSource(), pair.getComparate()));
+    }
+    return results;
+  }
+
+  /**
+   * Compares every pair of JsonRoots asynchronously, submitting each comparison as the returned
+   * stream is consumed.
+   *
+   * @param pairs The pairs to compare
+   * @return A stream of the futures of the json comparison results
+   */
+  public Stream<CompletableFuture<JsonCompareResult>> compareAll(Stream<JsonPair> pairs) {
+    return pairs.map(pair -> compareAsync(pair.getSource(), pair.getComparate()));
+  }
+
+  /**
+   * Gets the executor used when none is specified: an executor starting a new virtual thread per
+   * comparison when running on a JVM which supports virtual threads, otherwise the common {@link
+   * ForkJoinPool}.
+   *
+   * @return The default executor
+   */
+  public static Executor defaultExecutor() {
+    return DefaultExecutor.INSTANCE;
+  }
+
+  /** Lazily resolves the default executor. */
+  private static final class DefaultExecutor {
+
+    private static final Executor INSTANCE = resolve();
+
+    private static Executor resolve() {
+      try {
+        return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return ForkJoinPool.commonPool();
+      }
+    }
+  }
+}
@@ -15,13 +15,18 @@
  */
 package com.github.kvnxiao.jsonequals;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntPredicate;
 
 import me.doubledutch.lazyjson.LazyArray;
 import me.doubledutch.lazyjson.LazyObject;
 
-/** A class which acts as a container for a collection of child JSON elements and values. */
+/**
+ * A class which acts as a container for a collection of child JSON elements and values. Children
+ * are stored in an index-addressable list alongside a parallel list of their types, so that random
+ * access by index is constant time.
+ */
 public class JsonChildren {
 
   /** Enum which specifies the type of the JSON child element. */
@@ -34,15 +39,17 @@ public class JsonChildren {
     VALUE
   }
 
+  private static final int DEFAULT_CAPACITY = 8;
+
   private final List<Object> children;
   private final List<Type> childrenTypes;
   private int countObjects = 0;
   private int countArrays = 0;
   private int countValues = 0;
 
-  private JsonChildren() {
-    this.children = new LinkedList<>();
-    this.childrenTypes = new LinkedList<>();
+  private JsonChildren(int capacity) {
+    this.children = new ArrayList<>(capacity);
+    this.childrenTypes = new ArrayList<>(capacity);
   }
 
   /**
@@ -51,7 +58,17 @@ public class JsonChildren {
    * @return A new JsonChildren instance
    */
   public static JsonChildren create() {
-    return new JsonChildren();
+    return new JsonChildren(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new JsonChildren instance with room for the specified number of children.
+   *
+   * @param capacity The expected number of children
+   * @return A new JsonChildren instance
+   */
+  public static JsonChildren create(int capacity) {
+    return new JsonChildren(Math.max(capacity, 1));
   }
 
   /**
@@ -120,23 +137,49 @@ public class JsonChildren {
   }
 
   /**
-   * Gets the child from the specified index as a LazyArray (JSON array).
+   * Gets the child from the specified index as a JsonArrayNode (JSON array).
    *
    * @param index The index to take from
    * @return The child JSON array
    */
+  public JsonArrayNode getArrayNode(int index) {
+    return (JsonArrayNode) children.get(index);
+  }
+
+  /**
+   * Gets the child from the specified index as a JsonObjectNode (JSON object).
+   *
+   * @param index The index to take from
+   * @return The child JSON object
+   */
+  public JsonObjectNode getObjectNode(int index) {
+    return (JsonObjectNode) children.get(index);
+  }
+
+  /**
+   * Gets the child from the specified index as a LazyArray (JSON array). A child from another
+   * parser backend is parsed again by LazyJSON from its JSON text.
+   *
+   * @param index The index to take from
+   * @return The child JSON array
+   * @deprecated Use {@link #getArrayNode(int)}, which works with any parser backend
+   */
+  @Deprecated
   public LazyArray getArr(int index) {
-    return (LazyArray) children.get(index);
+    return LazyJsonNodes.toLazyArray(getArrayNode(index));
   }
 
   /**
-   * Gets the child from the specified index as a LazyObject (JSON object).
+   * Gets the child from the specified index as a LazyObject (JSON object). A child from another
+   * parser backend is parsed again by LazyJSON from its JSON text.
    *
    * @param index The index to take from
    * @return The child JSON object
+   * @deprecated Use {@link #getObjectNode(int)}, which works with any parser backend
    */
+  @Deprecated
   public LazyObject getObj(int index) {
-    return (LazyObject) children.get(index);
+    return LazyJsonNodes.toLazyObject(getObjectNode(index));
   }
 
   /**
@@ -144,23 +187,41 @@ public class JsonChildren {
    *
    * @param obj The JSON object to add
    */
-  public void addChildObject(LazyObject obj) {
+  public void addChildObject(JsonObjectNode obj) {
     children.add(obj);
     childrenTypes.add(Type.OBJECT);
     countObjects++;
   }
 
+  /**
+   * Adds a child LazyJSON object to this container.
+   *
+   * @param obj The JSON object to add
+   */
+  public void addChildObject(LazyObject obj) {
+    addChildObject(LazyJsonNodes.of(obj));
+  }
+
   /**
    * Adds a child JSON array to this container.
    *
    * @param arr The JSON array to add
    */
-  public void addChildArray(LazyArray arr) {
+  public void addChildArray(JsonArrayNode arr) {
     children.add(arr);
     childrenTypes.add(Type.ARRAY);
     countArrays++;
   }
 
+  /**
+   * Adds a child LazyJSON array to this container.
+   *
+   * @param arr The JSON array to add
+   */
+  public void addChildArray(LazyArray arr) {
+    addChildArray(LazyJsonNodes.of(arr));
+  }
+
   /**
    * Adds a value type to this container.
    *
@@ -173,7 +234,42 @@ public class JsonChildren {
   }
 
   /**
-   * Returns all the children from this container in another list.
+   * Removes every child whose index matches the provided filter, compacting the remaining children
+   * in place while preserving their order. The filter is always given the index the child had
+   * before any removal, and may read that child with {@link #get(int)} and {@link #getType(int)}.
+   *
+   * @param filter The filter which returns true for the indices of children to remove
+   * @return The number of children removed
+   */
+  public int removeIf(IntPredicate filter) {
+    int size = children.size();
+    int write = 0;
+    for (int read = 0; read < size; read++) {
+      if (filter.test(read)) {
+        switch (childrenTypes.get(read)) {
+          case OBJECT:
+            countObjects--;
+            break;
+          case ARRAY:
+            countArrays--;
+            break;
+          default:
+            countValues--;
+            break;
+        }
+      } else {
+        children.set(write, children.get(read));
+        childrenTypes.set(write, childrenTypes.get(read));
+        write++;
+      }
+    }
+    children.subList(write, size).clear();
+    childrenTypes.subList(write, size).clear();
+    return size - write;
+  }
+
+  /**
+   * Returns all the children from this container.
    *
    * @return A list of children from this container.
    */
@@ -182,7 +278,7 @@ public class JsonChildren {
   }
 
   /**
-   * Returns all the child types from this container in another list.
+   * Returns all the child types from this container.
    *
    * @return A list of {@link Type} from this container
    */
@@ -190,7 +286,13 @@ public class JsonChildren {
     return childrenTypes;
   }
 
-  /** Decrements the JSON object counter by 1, used for pruning. */
+  /**
+   * Decrements the JSON object counter by 1, used for pruning.
+   *
+   * @deprecated Use {@link #removeIf(IntPredicate)}, which removes children and their types
+   *     together and keeps every counter in sync
+   */
+  @Deprecated
   public void decrementObjCount() {
     countObjects--;
   }
@@ -0,0 +1,691 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import me.doubledutch.lazyjson.LazyArray;
+import me.doubledutch.lazyjson.LazyObject;
+
+/**
+ * An immutable, reusable comparator of JSON elements. All ignore and prune fields are compiled when
+ * the comparator is built, and every comparison keeps its own state, so a single instance can be
+ * shared and called concurrently from many threads.
+ */
+public final class JsonComparator {
+
+  /** Used with {@link Builder#withMaxInequalities(int)} to collect every inequality found. */
+  public static final int ALL_INEQUALITIES = Integer.MAX_VALUE;
+  /** The default number of success messages kept with {@link ReportingLevel#SAMPLE}. */
+  public static final int DEFAULT_SAMPLE_SIZE = 100;
+  /** The default number of children above which a JSON object or array is compared in parallel. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 512;
+  /** The default number of insertions and deletions searched for by an array diff. */
+  public static final int DEFAULT_MAX_ARRAY_EDITS = 1000;
+
+  final PathTrie rules;
+  final int maxInequalities;
+  final ReportingLevel successReporting;
+  final int successSampleSize;
+  final ForkJoinPool pool;
+  final int parallelThreshold;
+  final boolean debugMode;
+  final boolean subtreeDigests;
+  final boolean rawSpans;
+  final int maxArrayEdits;
+  final NumericTolerance numbers;
+  final boolean keyDiff;
+  final ComparisonMetrics metrics;
+  final JsonBackend backend;
+
+  private JsonComparator(Builder builder) {
+    this.rules =
+        builder.rules != null
+            ? builder.rules
+            : PathTrie.compile(
+                builder.ignoreFields,
+                builder.pruneFields,
+                builder.unorderedArrays,
+                builder.arrayKeys);
+    this.maxInequalities = builder.maxInequalities;
+    this.successReporting = builder.successReporting;
+    this.successSampleSize = builder.successSampleSize;
+    this.pool = builder.pool;
+    this.parallelThreshold = builder.parallelThreshold;
+    this.debugMode = builder.debugMode;
+    this.subtreeDigests = builder.subtreeDigests;
+    this.rawSpans = builder.rawSpans;
+    this.maxArrayEdits = builder.maxArrayEdits;
+    this.numbers = builder.numbers;
+    this.keyDiff = builder.keyDiff;
+    this.metrics = builder.metrics;
+    this.backend = builder.backend;
+  }
+
+  /**
+   * Returns a new builder for a JsonComparator. Unless configured otherwise, the comparator
+   * compares both JSON elements completely and keeps a message for every successful comparison.
+   *
+   * @return A new JsonComparator builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Parses raw JSON text into a JsonRoot with this comparator's {@link JsonBackend}, which defaults
+   * to {@link JsonRoot#from(String)}, reporting the time taken to this comparator's {@link
+   * ComparisonMetrics}.
+   *
+   * @param raw The raw JSON string to parse
+   * @return A new JsonRoot instance
+   */
+  public JsonRoot parse(String raw) {
+    if (metrics == ComparisonMetrics.NONE) {
+      return backend.parse(raw);
+    }
+    long start = System.nanoTime();
+    JsonRoot root = backend.parse(raw);
+    metrics.onParse(System.nanoTime() - start);
+    return root;
+  }
+
+  /**
+   * Compares two JsonRoots.
+   *
+   * @param source The source JsonRoot
+   * @param comparate The JsonRoot to compare to
+   * @return The json comparison result, or null if both root elements are not of the same type
+   * @throws UncheckedIOException if both JsonRoots were created from bytes or files and either of
+   *     them is not well-formed
+   */
+  public JsonCompareResult compare(JsonRoot source, JsonRoot comparate) {
+    return compare(source, comparate, null);
+  }
+
+  /**
+   * Compares two JsonRoots, delivering each inequality to a listener as soon as it is found rather
+   * than collecting it into the result.
+   *
+   * @param source The source JsonRoot
+   * @param comparate The JsonRoot to compare to
+   * @param listener The listener receiving each inequality, which may cancel the comparison
+   * @return The json comparison result, holding no inequalities but counting them, or null if both
+   *     root elements are not of the same type
+   * @throws UncheckedIOException if both JsonRoots were created from bytes or files and either of
+   *     them is not well-formed
+   */
+  public JsonCompareResult compare(
+      JsonRoot source, JsonRoot comparate, DifferenceListener listener) {
+    if (source != null && comparate != null) {
+      boolean indexed = subtreeDigests || rawSpans;
+      // Under an inequality limit or with a listener, which inequalities are found first depends on
+      // the order in which fields are compared, so both are then compared as trees, sorting fields
+      boolean lockstep =
+          pool == null && !indexed && maxInequalities == ALL_INEQUALITIES && listener == null;
+      ByteBuffer sourceBytes = lockstep && rules.isEmpty() ? source.getBytes() : null;
+      ByteBuffer comparateBytes = lockstep && rules.isEmpty() ? comparate.getBytes() : null;
+      if (sourceBytes != null && comparateBytes != null) {
+        // Without any rules, both documents are compared byte for byte where they lie
+        try {
+          return compare(sourceBytes, comparateBytes, listener);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      Reader sourceReader = lockstep ? source.openReader() : null;
+      Reader comparateReader = lockstep ? comparate.openReader() : null;
+      if (sourceReader != null && comparateReader != null) {
+        // Both files are compared directly from their mapped bytes
+        try {
+          return compare(sourceReader, comparateReader, listener);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      long start = startTimer();
+      SubtreeDigest sourceDigests = indexed ? source.getDigests() : null;
+      SubtreeDigest comparateDigests = indexed ? comparate.getDigests() : null;
+      if (source.isRootObject() && comparate.isRootObject()) {
+        Comparison comparison = newComparison(listener);
+        comparison.compareNode(
+            source.getRootObject(), comparate.getRootObject(), sourceDigests, comparateDigests);
+        return finish(comparison, start);
+      } else if (source.isRootArray() && comparate.isRootArray()) {
+        Comparison comparison = newComparison(listener);
+        comparison.compareNode(
+            source.getRootArray(), comparate.getRootArray(), sourceDigests, comparateDigests);
+        return finish(comparison, start);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compares two JSON objects.
+   *
+   * @param source The source JSON object
+   * @param comparate The JSON object to compare to
+   * @return The json comparison result
+   */
+  public JsonCompareResult compare(LazyObject source, LazyObject comparate) {
+    long start = startTimer();
+    Comparison comparison = newComparison(null);
+    comparison.compareNode(LazyJsonNodes.of(source), LazyJsonNodes.of(comparate));
+    return finish(comparison, start);
+  }
+
+  /**
+   * Compares two JSON arrays.
+   *
+   * @param source The source JSON array
+   * @param comparate The JSON array to compare to
+   * @return The json comparison result
+   */
+  public JsonCompareResult compare(LazyArray source, LazyArray comparate) {
+    long start = startTimer();
+    Comparison comparison = newComparison(null);
+    comparison.compareNode(LazyJsonNodes.of(source), LazyJsonNodes.of(comparate));
+    return finish(comparison, start);
+  }
+
+  /**
+   * Compares two JSON documents read from streams encoded in UTF-8, without reading either document
+   * into memory as a whole.
+   *
+   * @param source The stream of the source JSON document
+   * @param comparate The stream of the JSON document to compare to
+   * @return The json comparison result, or null if both root elements are not of the same type
+   * @throws IOException if either document could not be read or is not well-formed
+   * @see #compare(Reader, Reader)
+   */
+  public JsonCompareResult compare(InputStream source, InputStream comparate) throws IOException {
+    return compare(source, comparate, null);
+  }
+
+  /**
+   * Compares two JSON documents read from streams encoded in UTF-8, delivering each inequality to a
+   * listener as soon as it is found, so that neither the documents nor their inequalities are held
+   * in memory as a whole.
+   *
+   * @param source The stream of the source JSON document
+   * @param comparate The stream of the JSON document to compare to
+   * @param listener The listener receiving each inequality, which may cancel the comparison
+   * @return The json comparison result, holding no inequalities but counting them, or null if both
+   *     root elements are not of the same type
+   * @throws IOException if either document could not be read or is not well-formed
+   * @see #compare(Reader, Reader, DifferenceListener)
+   */
+  public JsonCompareResult compare(
+      InputStream source, InputStream comparate, DifferenceListener listener) throws IOException {
+    return compare(
+        new InputStreamReader(source, StandardCharsets.UTF_8),
+        new InputStreamReader(comparate, StandardCharsets.UTF_8),
+        listener);
+  }
+
+  /**
+   * Compares two JSON documents read from readers, without reading either document into memory as a
+   * whole. Both documents are read in lockstep and compared token by token; only when the fields of
+   * two JSON objects are not in the same order, or when a JSON array may need pruning or diffing,
+   * is that object or array buffered. The readers are not closed.
+   *
+   * <p>The result is the same as for a comparison of both documents as a whole, except that fields
+   * are compared in the order they appear in the documents rather than sorted by name, so with
+   * {@link Builder#withMaxInequalities(int)} the comparison may stop on other inequalities. Once it
+   * has stopped, the rest of both documents is still read to check each enclosing JSON object or
+   * array as a whole, as a comparison of trees does before comparing its children.
+   *
+   * @param source The reader of the source JSON document
+   * @param comparate The reader of the JSON document to compare to
+   * @return The json comparison result, or null if both root elements are not of the same type
+   * @throws IOException if either document could not be read or is not well-formed
+   */
+  public JsonCompareResult compare(Reader source, Reader comparate) throws IOException {
+    return compare(source, comparate, null);
+  }
+
+  /**
+   * Compares two JSON documents read from readers as with {@link #compare(Reader, Reader)},
+   * delivering each inequality to a listener as soon as it is found rather than collecting it into
+   * the result.
+   *
+   * @param source The reader of the source JSON document
+   * @param comparate The reader of the JSON document to compare to
+   * @param listener The listener receiving each inequality, which may cancel the comparison
+   * @return The json comparison result, holding no inequalities but counting them, or null if both
+   *     root elements are not of the same type
+   * @throws IOException if either document could not be read or is not well-formed
+   */
+  public JsonCompareResult compare(Reader source, Reader comparate, DifferenceListener listener)
+      throws IOException {
+    long start = startTimer();
+    Comparison comparison = newComparison(listener);
+    StreamingComparison streaming =
+        new StreamingComparison(comparison, source, comparate, debugMode, numbers);
+    return streaming.compare(rules.root()) ? finish(comparison, start) : null;
+  }
+
+  /**
+   * Compares two JSON documents held as UTF-8 bytes, to which no rules apply.
+   *
+   * @param source The bytes of the source JSON document
+   * @param comparate The bytes of the JSON document to compare to
+   * @param listener The listener receiving each inequality, or null to collect them
+   * @return The json comparison result, or null if both root elements are not of the same type
+   * @throws IOException if either document is not well-formed
+   */
+  private JsonCompareResult compare(
+      ByteBuffer source, ByteBuffer comparate, DifferenceListener listener) throws IOException {
+    long start = startTimer();
+    Comparison comparison = newComparison(listener);
+    ByteComparison bytes = new ByteComparison(comparison, source, comparate, debugMode, numbers);
+    return bytes.compare() ? finish(comparison, start) : null;
+  }
+
+  /** Starts timing a comparison, only reading the clock if a metrics listener is set. */
+  private long startTimer() {
+    return metrics == ComparisonMetrics.NONE ? 0 : System.nanoTime();
+  }
+
+  /** Reports the stats of a finished comparison to the metrics listener, and builds its result. */
+  private JsonCompareResult finish(Comparison comparison, long start) {
+    if (metrics != ComparisonMetrics.NONE) {
+      metrics.onComparison(comparison.toStats(System.nanoTime() - start));
+    }
+    return comparison.toResult();
+  }
+
+  /**
+   * Returns a new builder holding the settings of this comparator, including its compiled rules.
+   *
+   * @return A new JsonComparator builder
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder().withRules(rules);
+    builder.maxInequalities = maxInequalities;
+    builder.successReporting = successReporting;
+    builder.successSampleSize = successSampleSize;
+    builder.pool = pool;
+    builder.parallelThreshold = parallelThreshold;
+    builder.debugMode = debugMode;
+    builder.subtreeDigests = subtreeDigests;
+    builder.rawSpans = rawSpans;
+    builder.maxArrayEdits = maxArrayEdits;
+    builder.numbers = numbers;
+    builder.keyDiff = keyDiff;
+    builder.metrics = metrics;
+    builder.backend = backend;
+    return builder;
+  }
+
+  /**
+   * Creates the state for a single comparison using this comparator's settings.
+   *
+   * @param listener The listener receiving each inequality, or null to collect them
+   * @return A new comparison
+   */
+  Comparison newComparison(DifferenceListener listener) {
+    return new Comparison(this, listener);
+  }
+
+  /** A builder class used to configure and compile a {@link JsonComparator}. */
+  public static final class Builder {
+
+    private Set<String> ignoreFields = null;
+    private Map<String, String> pruneFields = null;
+    private Set<String> unorderedArrays = null;
+    private Set<String> arrayKeys = null;
+    private PathTrie rules = null;
+    private int maxInequalities = ALL_INEQUALITIES;
+    private ReportingLevel successReporting = ReportingLevel.FULL;
+    private int successSampleSize = DEFAULT_SAMPLE_SIZE;
+    private ForkJoinPool pool = null;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private boolean debugMode = false;
+    private boolean subtreeDigests = false;
+    private boolean rawSpans = false;
+    private int maxArrayEdits = 0;
+    private NumericTolerance numbers = NumericTolerance.DOUBLE;
+    private boolean keyDiff = false;
+    private ComparisonMetrics metrics = ComparisonMetrics.NONE;
+    private JsonBackend backend = JsonBackend.LAZY_JSON;
+
+    private Builder() {}
+
+    /**
+     * Specifies the optional fields to ignore from comparison.
+     *
+     * @param ignoreFields The set of JSON node paths to ignore from comparison
+     * @return The builder instance
+     */
+    public Builder withIgnoreFields(Set<String> ignoreFields) {
+      this.ignoreFields = ignoreFields;
+      this.rules = null;
+      return this;
+    }
+
+    /**
+     * Specifies the optional fields to prune before comparison.
+     *
+     * @param pruneFields The predicate map of JSON node paths to expected values that need to be
+     *     pruned before comparison
+     * @return The builder instance
+     */
+    public Builder withPruneFields(Map<String, String> pruneFields) {
+      this.pruneFields = pruneFields;
+      this.rules = null;
+      return this;
+    }
+
+    /**
+     * Specifies the optional JSON arrays whose elements are compared regardless of their order.
+     * Elements are matched to one another by a structural hash which follows the ignore and prune
+     * rules below the array, and only the elements left without a match are reported, as {@link
+     * Difference.Kind#REMOVED_ELEMENT} or {@link Difference.Kind#ADDED_ELEMENT} inequalities.
+     *
+     * @param unorderedArrays The set of JSON array paths whose elements may be in any order
+     * @return The builder instance
+     */
+    public Builder withUnorderedArrays(Set<String> unorderedArrays) {
+      this.unorderedArrays = unorderedArrays;
+      this.rules = null;
+      return this;
+    }
+
+    /**
+     * Specifies the optional identity keys of JSON array elements, in the same format as the keys
+     * of {@link #withPruneFields(Map)}: "arrayElementPath:fieldPath", such as {@code
+     * $.items[*]:id}. Elements with equal keys are compared directly regardless of their indices,
+     * so an insertion does not shift every following element. Elements whose key has no match on
+     * the other side are reported as {@link Difference.Kind#REMOVED_ELEMENT} or {@link
+     * Difference.Kind#ADDED_ELEMENT} inequalities, while elements without a key are compared in
+     * order with one another.
+     *
+     * @param arrayKeys The set of JSON array element paths and the key fields of those elements
+     * @return The builder instance
+     */
+    public Builder withArrayKeys(Set<String> arrayKeys) {
+      this.arrayKeys = arrayKeys;
+      this.rules = null;
+      return this;
+    }
+
+    /**
+     * Specifies ignore and prune rules which have already been compiled, replacing any fields set
+     * with {@link #withIgnoreFields(Set)}, {@link #withPruneFields(Map)}, {@link
+     * #withUnorderedArrays(Set)} or {@link #withArrayKeys(Set)}.
+     *
+     * @param rules The compiled ignore and prune rules
+     * @return The builder instance
+     */
+    Builder withRules(PathTrie rules) {
+      this.ignoreFields = null;
+      this.pruneFields = null;
+      this.unorderedArrays = null;
+      this.arrayKeys = null;
+      this.rules = rules;
+      return this;
+    }
+
+    /**
+     * Specifies the number of inequalities after which a comparison stops. The traversal ends as
+     * soon as this many inequalities have been found, leaving the rest of both JSON elements
+     * unvisited.
+     *
+     * @param maxInequalities The maximum number of inequalities to find, or {@link
+     *     #ALL_INEQUALITIES} to compare both JSON elements completely
+     * @return The builder instance
+     */
+    public Builder withMaxInequalities(int maxInequalities) {
+      if (maxInequalities < 1) {
+        throw new IllegalArgumentException("maxInequalities must be at least 1");
+      }
+      this.maxInequalities = maxInequalities;
+      return this;
+    }
+
+    /**
+     * Stops each comparison at the first inequality found.
+     *
+     * @return The builder instance
+     */
+    public Builder failFast() {
+      return withMaxInequalities(1);
+    }
+
+    /**
+     * Specifies how many success messages are kept in comparison results. Defaults to {@link
+     * ReportingLevel#FULL}; {@link ReportingLevel#SAMPLE} keeps the first {@link
+     * #DEFAULT_SAMPLE_SIZE} messages.
+     *
+     * @param successReporting The reporting level for success messages
+     * @return The builder instance
+     */
+    public Builder withSuccessReporting(ReportingLevel successReporting) {
+      this.successReporting = successReporting;
+      return this;
+    }
+
+    /**
+     * Keeps at most the specified number of success messages in comparison results, counting the
+     * rest.
+     *
+     * @param sampleSize The maximum number of success messages to keep
+     * @return The builder instance
+     */
+    public Builder withSuccessSample(int sampleSize) {
+      if (sampleSize < 0) {
+        throw new IllegalArgumentException("sampleSize must not be negative");
+      }
+      this.successReporting = ReportingLevel.SAMPLE;
+      this.successSampleSize = sampleSize;
+      return this;
+    }
+
+    /**
+     * Compares JSON objects and arrays with at least {@link #DEFAULT_PARALLEL_THRESHOLD} children
+     * in parallel, using the common {@link ForkJoinPool}.
+     *
+     * @return The builder instance
+     * @see #parallel(ForkJoinPool, int)
+     */
+    public Builder parallel() {
+      return parallel(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Compares JSON objects and arrays with at least the specified number of children in parallel,
+     * by splitting their children into ranges compared as separate tasks in the provided pool. Each
+     * task collects its own results, which are merged back in order, so the result is the same as
+     * for a sequential comparison. With {@link #withMaxInequalities(int)}, the same inequalities
+     * are reported but the success count may include nodes a sequential comparison would not have
+     * visited.
+     *
+     * @param pool The pool to run comparison tasks in
+     * @param threshold The minimum number of children of a JSON object or array to compare it in
+     *     parallel
+     * @return The builder instance
+     */
+    public Builder parallel(ForkJoinPool pool, int threshold) {
+      if (threshold < 2) {
+        throw new IllegalArgumentException("threshold must be at least 2");
+      }
+      this.pool = pool;
+      this.parallelThreshold = threshold;
+      return this;
+    }
+
+    /**
+     * Compares JSON arrays of different lengths by a minimal diff of their elements, searching for
+     * at most {@link #DEFAULT_MAX_ARRAY_EDITS} insertions and deletions.
+     *
+     * @return The builder instance
+     * @see #withArrayDiff(int)
+     */
+    public Builder withArrayDiff() {
+      return withArrayDiff(DEFAULT_MAX_ARRAY_EDITS);
+    }
+
+    /**
+     * Compares JSON arrays of different lengths by a minimal diff of their elements, instead of
+     * only reporting that their lengths differ. The elements of both arrays are aligned by the
+     * shortest script of insertions and deletions over their structural hashes; aligned elements
+     * are compared as usual, each inserted element facing a deleted one is compared with it as a
+     * changed element, and the rest are reported as {@link Difference.Kind#REMOVED_ELEMENT} or
+     * {@link Difference.Kind#ADDED_ELEMENT} inequalities. Arrays needing more insertions and
+     * deletions than the specified cap are reported as differing in length, which bounds the time
+     * spent on each array to O((N + M) * maxEdits) with memory linear in its length.
+     *
+     * @param maxEdits The maximum number of insertions and deletions to search for
+     * @return The builder instance
+     */
+    public Builder withArrayDiff(int maxEdits) {
+      if (maxEdits < 1) {
+        throw new IllegalArgumentException("maxEdits must be at least 1");
+      }
+      this.maxArrayEdits = maxEdits;
+      return this;
+    }
+
+    /**
+     * Reports each field missing from either of two JSON objects on its own, as a {@link
+     * Difference.Kind#REMOVED_FIELD} or {@link Difference.Kind#ADDED_FIELD} inequality, and still
+     * compares the fields both objects have. By default, two JSON objects which do not have the
+     * same key names are reported once as a {@link Difference.Kind#KEYS_MISMATCH}, without
+     * comparing any of their fields. Ignored fields are not reported as missing.
+     *
+     * @return The builder instance
+     */
+    public Builder withKeyDiff() {
+      this.keyDiff = true;
+      return this;
+    }
+
+    /**
+     * Specifies when two floating point numbers are equal. Defaults to {@link
+     * NumericTolerance#DOUBLE}, comparing numbers by their double values so that 1.0 equals 1.00.
+     * Integers are always compared exactly.
+     *
+     * @param numbers The tolerance used to compare floating point numbers
+     * @return The builder instance
+     */
+    public Builder withNumericTolerance(NumericTolerance numbers) {
+      if (numbers == null) {
+        throw new IllegalArgumentException("numbers must not be null");
+      }
+      this.numbers = numbers;
+      return this;
+    }
+
+    /**
+     * Specifies the listener receiving the counters and phase timings of each comparison, and the
+     * parse time of each document parsed with {@link JsonComparator#parse(String)}. Defaults to
+     * {@link ComparisonMetrics#NONE}, which takes no timings. Unlike {@link
+     * #withDebugMode(boolean)}, nothing is logged per node, so a listener can be kept on under
+     * load.
+     *
+     * @param metrics The metrics listener
+     * @return The builder instance
+     */
+    public Builder withMetrics(ComparisonMetrics metrics) {
+      if (metrics == null) {
+        throw new IllegalArgumentException("metrics must not be null");
+      }
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Specifies the parser backend used by {@link JsonComparator#parse(String)}. Defaults to {@link
+     * JsonBackend#LAZY_JSON}.
+     *
+     * @param backend The parser backend
+     * @return The builder instance
+     */
+    public Builder withBackend(JsonBackend backend) {
+      if (backend == null) {
+        throw new IllegalArgumentException("backend must not be null");
+      }
+      this.backend = backend;
+      return this;
+    }
+
+    /**
+     * Specifies whether comparisons are logged using an SLF4J implementation.
+     *
+     * @param debugMode the debug mode boolean value
+     * @return The builder instance
+     */
+    public Builder withDebugMode(boolean debugMode) {
+      this.debugMode = debugMode;
+      return this;
+    }
+
+    /**
+     * Skips pairs of JSON objects or arrays which are structurally equal when comparing two
+     * JsonRoots. A key-order-insensitive digest of every subtree of a JsonRoot is computed once,
+     * the first time it is compared with this option, and kept with the JsonRoot. Subtrees whose
+     * digests match are counted as successful comparisons without being visited, so repeated
+     * comparisons against the same JsonRoot only descend into the branches which differ.
+     *
+     * <p>Subtrees are only skipped where no ignore or prune rules apply, and where no success
+     * messages would be kept, so this is best combined with {@link ReportingLevel#COUNTS}. Two
+     * different subtrees are only mistaken as equal if their 64-bit digests collide.
+     *
+     * @return The builder instance
+     */
+    public Builder withSubtreeDigests() {
+      this.subtreeDigests = true;
+      return this;
+    }
+
+    /**
+     * Skips pairs of JSON objects or arrays whose raw text is byte-identical when comparing two
+     * JsonRoots created from raw JSON text or files. The span of every subtree within the raw text
+     * is found by a single scan of the text, done once per JsonRoot, and identical spans are
+     * counted as successful comparisons without materializing either subtree. Unlike {@link
+     * #withSubtreeDigests()}, only identical text is skipped, so the result is always exact.
+     *
+     * <p>Subtrees are only skipped where no ignore or prune rules apply, and where no success
+     * messages would be kept, so this is best combined with {@link ReportingLevel#COUNTS}.
+     *
+     * @return The builder instance
+     */
+    public Builder withRawSpans() {
+      this.rawSpans = true;
+      return this;
+    }
+
+    /**
+     * Compiles the configured fields and builds an immutable JsonComparator.
+     *
+     * @return A new JsonComparator instance
+     */
+    public JsonComparator build() {
+      return new JsonComparator(this);
+    }
+  }
+}
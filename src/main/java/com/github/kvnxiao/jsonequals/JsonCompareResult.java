@@ -15,48 +15,138 @@
  */
 package com.github.kvnxiao.jsonequals;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
 
 /** A class used to simply hold the result of a comparison between two {@link JsonRoot}s. */
 public class JsonCompareResult {
 
   private final boolean isEqual;
+  private final int successCount;
   private final List<String> successMessages;
-  private final List<String> inequalityMessages;
+  private final List<Difference> differences;
+  private final int inequalityCount;
+  private final boolean truncated;
 
   private JsonCompareResult(
-      boolean isEqual, List<String> successMessages, List<String> inequalityMessages) {
+      boolean isEqual,
+      int successCount,
+      List<String> successMessages,
+      List<Difference> differences,
+      int inequalityCount,
+      boolean truncated) {
     this.isEqual = isEqual;
+    this.successCount = successCount;
     this.successMessages = successMessages;
-    this.inequalityMessages = inequalityMessages;
+    this.differences = differences;
+    this.inequalityCount = inequalityCount;
+    this.truncated = truncated;
   }
 
   public static JsonCompareResult of(
       boolean isEqual, List<String> successMessages, List<String> inequalityMessages) {
-    return new JsonCompareResult(isEqual, successMessages, inequalityMessages);
+    List<Difference> differences = new ArrayList<>(inequalityMessages.size());
+    for (String inequalityMessage : inequalityMessages) {
+      differences.add(Difference.ofMessage(inequalityMessage));
+    }
+    return new JsonCompareResult(
+        isEqual, successMessages.size(), successMessages, differences, differences.size(), false);
+  }
+
+  public static JsonCompareResult of(
+      boolean isEqual,
+      int successCount,
+      List<String> successMessages,
+      List<Difference> differences,
+      boolean truncated) {
+    return new JsonCompareResult(
+        isEqual, successCount, successMessages, differences, differences.size(), truncated);
+  }
+
+  /**
+   * Creates the result of a comparison whose inequalities may have been delivered to a listener.
+   */
+  static JsonCompareResult of(
+      boolean isEqual,
+      int successCount,
+      List<String> successMessages,
+      List<Difference> differences,
+      int inequalityCount,
+      boolean truncated) {
+    return new JsonCompareResult(
+        isEqual, successCount, successMessages, differences, inequalityCount, truncated);
   }
 
   public List<String> getSuccessMessages() {
     return successMessages;
   }
 
+  /**
+   * Gets the inequality messages, rendered from the {@link Difference}s as each one is accessed.
+   *
+   * @return A read-only list of inequality messages
+   */
   public List<String> getInequalityMessages() {
-    return inequalityMessages;
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        return differences.get(index).getMessage();
+      }
+
+      @Override
+      public int size() {
+        return differences.size();
+      }
+    };
+  }
+
+  /**
+   * Gets the inequalities found during the comparison, in the order they were found. Inequalities
+   * delivered to a {@link DifferenceListener} are not kept, in which case this list is empty.
+   *
+   * @return The list of differences
+   */
+  public List<Difference> getDifferences() {
+    return differences;
   }
 
   public boolean isEqual() {
     return isEqual;
   }
 
+  /**
+   * Checks whether the comparison stopped early after reaching its inequality limit or being
+   * cancelled by its {@link DifferenceListener}, in which case the messages only cover the part of
+   * the JSON elements visited before stopping.
+   *
+   * @return true if the comparison was stopped before visiting every node, false otherwise
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  /**
+   * Gets the number of successful comparisons, which may be greater than the number of success
+   * messages kept depending on the {@link ReportingLevel} used.
+   *
+   * @return The number of successful comparisons
+   */
   public int getSuccessCount() {
-    return successMessages.size();
+    return successCount;
   }
 
+  /**
+   * Gets the number of inequalities found, including those delivered to a {@link
+   * DifferenceListener}.
+   *
+   * @return The number of inequalities
+   */
   public int getInequalityCount() {
-    return inequalityMessages.size();
+    return inequalityCount;
   }
 
   public int getTotalMessageCount() {
-    return successMessages.size() + inequalityMessages.size();
+    return successCount + inequalityCount;
   }
 }
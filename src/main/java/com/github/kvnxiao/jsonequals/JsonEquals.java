@@ -15,46 +15,41 @@
  */
 package com.github.kvnxiao.jsonequals;
 
-import static com.github.kvnxiao.jsonequals.Constants.BEGIN_BRACKET;
-import static com.github.kvnxiao.jsonequals.Constants.END_BRACKET;
-import static com.github.kvnxiao.jsonequals.Constants.NODE_SEPARATOR;
-import static com.github.kvnxiao.jsonequals.Constants.PREDICATE_SEPARATOR;
-import static com.github.kvnxiao.jsonequals.Constants.ROOT_NAME;
-import static com.github.kvnxiao.jsonequals.Constants.SEPARATOR_REGEX;
-import static com.github.kvnxiao.jsonequals.Constants.WILDCARD;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import me.doubledutch.lazyjson.LazyArray;
 import me.doubledutch.lazyjson.LazyElement;
 import me.doubledutch.lazyjson.LazyObject;
 import me.doubledutch.lazyjson.LazyType;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-/** A builder class used to compare two JSON elements. */
+/**
+ * A builder class used to compare two JSON elements. Each instance runs a single comparison; use a
+ * {@link JsonComparator} to reuse the same settings across many comparisons and threads.
+ */
 public class JsonEquals {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(JsonEquals.class);
-  private static boolean debugMode = false;
+  /** Used with {@link #withMaxInequalities(int)} to collect every inequality found. */
+  public static final int ALL_INEQUALITIES = JsonComparator.ALL_INEQUALITIES;
+  /** The default number of success messages kept with {@link ReportingLevel#SAMPLE}. */
+  public static final int DEFAULT_SAMPLE_SIZE = JsonComparator.DEFAULT_SAMPLE_SIZE;
+  /** The default number of children above which a JSON object or array is compared in parallel. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = JsonComparator.DEFAULT_PARALLEL_THRESHOLD;
+  /** The default number of insertions and deletions searched for by an array diff. */
+  public static final int DEFAULT_MAX_ARRAY_EDITS = JsonComparator.DEFAULT_MAX_ARRAY_EDITS;
+
+  private static volatile boolean debugMode = false;
 
   private final LazyType rootType;
+  private final JsonComparator.Builder comparator = JsonComparator.builder();
   private LazyElement source = null;
   private LazyElement comparate = null;
-  private Map<String, String> pruneFields;
-  private Set<String> ignoreFields;
-  private List<String> successMessages;
-  private List<String> inequalityMessages;
+  private DifferenceListener listener = null;
+  private Comparison comparison = null;
 
   private JsonEquals(LazyType rootType) {
     this.rootType = rootType;
-    this.successMessages = new ArrayList<>();
-    this.inequalityMessages = new ArrayList<>();
   }
 
   /**
@@ -119,7 +114,7 @@ public class JsonEquals {
    * @return The JsonEquals instance
    */
   public JsonEquals withIgnoreFields(Set<String> ignoreFields) {
-    this.ignoreFields = ignoreFields;
+    comparator.withIgnoreFields(ignoreFields);
     return this;
   }
 
@@ -131,7 +126,183 @@ public class JsonEquals {
    * @return The JsonEquals instance
    */
   public JsonEquals withPruneFields(Map<String, String> pruneFields) {
-    this.pruneFields = pruneFields;
+    comparator.withPruneFields(pruneFields);
+    return this;
+  }
+
+  /**
+   * Specifies the optional JSON arrays whose elements are compared regardless of their order, so
+   * that only the elements without a match on the other side are reported.
+   *
+   * @param unorderedArrays The set of JSON array paths whose elements may be in any order
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withUnorderedArrays(Set<String> unorderedArrays) {
+    comparator.withUnorderedArrays(unorderedArrays);
+    return this;
+  }
+
+  /**
+   * Specifies the optional identity keys of JSON array elements, such as {@code $.items[*]:id}, so
+   * that elements are matched by key rather than by index.
+   *
+   * @param arrayKeys The set of JSON array element paths and the key fields of those elements
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withArrayKeys(Set<String> arrayKeys) {
+    comparator.withArrayKeys(arrayKeys);
+    return this;
+  }
+
+  /**
+   * Specifies the number of inequalities after which the comparison stops. The traversal ends as
+   * soon as this many inequalities have been found, leaving the rest of both JSON elements
+   * unvisited.
+   *
+   * @param maxInequalities The maximum number of inequalities to find, or {@link #ALL_INEQUALITIES}
+   *     to compare both JSON elements completely
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withMaxInequalities(int maxInequalities) {
+    comparator.withMaxInequalities(maxInequalities);
+    return this;
+  }
+
+  /**
+   * Stops the comparison at the first inequality found. Useful when only {@link
+   * JsonCompareResult#isEqual()} is of interest.
+   *
+   * @return The JsonEquals instance
+   */
+  public JsonEquals failFast() {
+    return withMaxInequalities(1);
+  }
+
+  /**
+   * Specifies how many success messages are kept in the comparison result. Successful comparisons
+   * are always counted, but only {@link ReportingLevel#FULL} keeps a message for every one of them.
+   * Defaults to {@link ReportingLevel#FULL}; {@link ReportingLevel#SAMPLE} keeps the first {@link
+   * #DEFAULT_SAMPLE_SIZE} messages.
+   *
+   * @param successReporting The reporting level for success messages
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withSuccessReporting(ReportingLevel successReporting) {
+    comparator.withSuccessReporting(successReporting);
+    return this;
+  }
+
+  /**
+   * Keeps at most the specified number of success messages in the comparison result, counting the
+   * rest. Equivalent to {@link ReportingLevel#SAMPLE} with a custom sample size.
+   *
+   * @param sampleSize The maximum number of success messages to keep
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withSuccessSample(int sampleSize) {
+    comparator.withSuccessSample(sampleSize);
+    return this;
+  }
+
+  /**
+   * Compares JSON objects and arrays with at least {@link #DEFAULT_PARALLEL_THRESHOLD} children in
+   * parallel, using the common {@link ForkJoinPool}.
+   *
+   * @return The JsonEquals instance
+   * @see #parallel(ForkJoinPool, int)
+   */
+  public JsonEquals parallel() {
+    return parallel(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Compares JSON objects and arrays with at least the specified number of children in parallel, by
+   * splitting their children into ranges compared as separate tasks in the provided pool. Each task
+   * collects its own results, which are merged back in order, so the result is the same as for a
+   * sequential comparison. With {@link #withMaxInequalities(int)}, the same inequalities are
+   * reported but the success count may include nodes a sequential comparison would not have
+   * visited.
+   *
+   * @param pool The pool to run comparison tasks in
+   * @param threshold The minimum number of children of a JSON object or array to compare it in
+   *     parallel
+   * @return The JsonEquals instance
+   */
+  public JsonEquals parallel(ForkJoinPool pool, int threshold) {
+    comparator.parallel(pool, threshold);
+    return this;
+  }
+
+  /**
+   * Reports each field missing from either of two JSON objects on its own, and still compares the
+   * fields both objects have, rather than reporting only that their key names differ.
+   *
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withKeyDiff() {
+    comparator.withKeyDiff();
+    return this;
+  }
+
+  /**
+   * Specifies when two floating point numbers are equal, such as within an absolute or relative
+   * tolerance. Defaults to {@link NumericTolerance#DOUBLE}.
+   *
+   * @param numbers The tolerance used to compare floating point numbers
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withNumericTolerance(NumericTolerance numbers) {
+    comparator.withNumericTolerance(numbers);
+    return this;
+  }
+
+  /**
+   * Specifies the listener receiving the counters and phase timings of each comparison. Defaults to
+   * {@link ComparisonMetrics#NONE}.
+   *
+   * @param metrics The metrics listener
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withMetrics(ComparisonMetrics metrics) {
+    comparator.withMetrics(metrics);
+    return this;
+  }
+
+  /**
+   * Specifies the listener receiving each inequality as soon as it is found. Inequalities delivered
+   * to the listener are counted but not kept in the result, and the listener may cancel the
+   * comparison.
+   *
+   * @param listener The listener receiving each inequality
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withDifferenceListener(DifferenceListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Compares JSON arrays of different lengths by a minimal diff of their elements, searching for at
+   * most {@link #DEFAULT_MAX_ARRAY_EDITS} insertions and deletions.
+   *
+   * @return The JsonEquals instance
+   * @see #withArrayDiff(int)
+   */
+  public JsonEquals withArrayDiff() {
+    return withArrayDiff(DEFAULT_MAX_ARRAY_EDITS);
+  }
+
+  /**
+   * Compares JSON arrays of different lengths by a minimal diff of their elements, reporting the
+   * removed, added and changed elements rather than only that their lengths differ. Arrays needing
+   * more than the specified number of insertions and deletions are still reported as differing in
+   * length.
+   *
+   * @param maxEdits The maximum number of insertions and deletions to search for
+   * @return The JsonEquals instance
+   */
+  public JsonEquals withArrayDiff(int maxEdits) {
+    comparator.withArrayDiff(maxEdits);
     return this;
   }
 
@@ -146,7 +317,7 @@ public class JsonEquals {
     } else {
       compareNode((LazyArray) source, (LazyArray) comparate);
     }
-    return JsonCompareResult.of(inequalityMessages.isEmpty(), successMessages, inequalityMessages);
+    return comparison().toResult();
   }
 
   /**
@@ -156,7 +327,7 @@ public class JsonEquals {
    * @param b comparate JSON object
    */
   public void compareNode(LazyObject a, LazyObject b) {
-    compareNode(a, b, ROOT_NAME);
+    comparison().compareNode(LazyJsonNodes.of(a), LazyJsonNodes.of(b));
   }
 
   /**
@@ -166,7 +337,7 @@ public class JsonEquals {
    * @param b comparate JSON array
    */
   public void compareNode(LazyArray a, LazyArray b) {
-    compareNode(a, b, ROOT_NAME);
+    comparison().compareNode(LazyJsonNodes.of(a), LazyJsonNodes.of(b));
   }
 
   /**
@@ -177,32 +348,7 @@ public class JsonEquals {
    * @param currentPath The current JSON node path
    */
   public void compareNode(LazyObject a, LazyObject b, String currentPath) {
-    if (pathIsIgnoreField(currentPath)) {
-      return;
-    }
-
-    Set<String> fieldsA = a.keySet();
-    Set<String> fieldsB = b.keySet();
-    if (fieldsA.equals(fieldsB)) {
-      for (String fieldName : fieldsA) {
-        if (childIsObject(a, fieldName) && childIsObject(b, fieldName)) {
-          compareNode(
-              a.getJSONObject(fieldName),
-              b.getJSONObject(fieldName),
-              getChildPath(currentPath, fieldName));
-        } else if (childIsArray(a, fieldName) && childIsArray(b, fieldName)) {
-          compareNode(
-              a.getJSONArray(fieldName),
-              b.getJSONArray(fieldName),
-              getChildPath(currentPath, fieldName));
-        } else {
-          compareValues(a, b, fieldName, getChildPath(currentPath, fieldName));
-        }
-      }
-    } else {
-      inequalityMessages.add(
-          "JSON objects do not have the same child key names! " + fieldsA + " vs. " + fieldsB);
-    }
+    comparison().compareNode(LazyJsonNodes.of(a), LazyJsonNodes.of(b), currentPath);
   }
 
   /**
@@ -213,77 +359,7 @@ public class JsonEquals {
    * @param currentPath The current JSON node path
    */
   public void compareNode(LazyArray a, LazyArray b, String currentPath) {
-    if (pathIsIgnoreField(currentPath)) {
-      return;
-    }
-
-    JsonChildren childrenA = getChildList(a);
-    JsonChildren childrenB = getChildList(b);
-    if (pruneFields != null && !pruneFields.isEmpty()) {
-      prune(childrenA, currentPath, "source");
-      prune(childrenB, currentPath, "comparate");
-    }
-    if (!childrenA.isEmpty() && !childrenB.isEmpty()) {
-      if (childrenA.objectCount() == childrenB.objectCount()
-          && childrenA.arrayCount() == childrenB.arrayCount()
-          && childrenA.valueCount() == childrenB.valueCount()) {
-        for (int i = 0; i < childrenA.size(); i++) {
-
-          if (childrenA.getType(i) == JsonChildren.Type.OBJECT
-              && childrenB.getType(i) == JsonChildren.Type.OBJECT) {
-            // Compare child objects
-            compareNode(
-                childrenA.getObj(i),
-                childrenB.getObj(i),
-                currentPath + BEGIN_BRACKET + i + END_BRACKET);
-
-          } else if (childrenA.getType(i) == JsonChildren.Type.ARRAY
-              && childrenB.getType(i) == JsonChildren.Type.ARRAY) {
-            // Compare child arrays
-            compareNode(
-                childrenA.getArr(i),
-                childrenB.getArr(i),
-                currentPath + BEGIN_BRACKET + i + END_BRACKET);
-
-          } else if (childrenA.getType(i) == JsonChildren.Type.VALUE
-              && childrenB.getType(i) == JsonChildren.Type.VALUE) {
-            // Compare primitive values
-            if (debugMode) {
-              LOGGER.debug(
-                  "Checking array value: {}", currentPath + BEGIN_BRACKET + i + END_BRACKET);
-            }
-            if (!childrenA.get(i).equals(childrenB.get(i))) {
-              inequalityMessages.add(
-                  currentPath
-                      + " JSON array value expected to be "
-                      + childrenA.get(i)
-                      + " but got "
-                      + childrenB.get(i));
-            } else {
-              successMessages.add(
-                  currentPath + BEGIN_BRACKET + i + END_BRACKET + "==" + childrenA.get(i));
-            }
-          } else {
-            inequalityMessages.add(
-                currentPath
-                    + BEGIN_BRACKET
-                    + i
-                    + END_BRACKET
-                    + " types were not the same! Expected "
-                    + childrenA.getType(i)
-                    + " but got "
-                    + childrenB.getType(i));
-          }
-        }
-      } else {
-        inequalityMessages.add(
-            currentPath
-                + " JSON array not equal in length! "
-                + childrenA.size()
-                + " vs "
-                + childrenB.size());
-      }
-    }
+    comparison().compareNode(LazyJsonNodes.of(a), LazyJsonNodes.of(b), currentPath);
   }
 
   /**
@@ -295,240 +371,37 @@ public class JsonEquals {
    * @param currentPath The current JSON node path
    */
   public void compareValues(LazyObject a, LazyObject b, String fieldName, String currentPath) {
-    if (pathIsIgnoreField(currentPath)) {
-      return;
-    }
-
-    if (debugMode) {
-      LOGGER.debug("Checking leaf object: {}", currentPath);
-    }
-
-    if (a.getType(fieldName) == LazyType.STRING && b.getType(fieldName) == LazyType.STRING) {
-      if (a.getString(fieldName).equals(b.getString(fieldName))) {
-        successMessages.add(currentPath + "==" + a.getString(fieldName));
-      } else {
-        logInequality(a.getString(fieldName), b.getString(fieldName), currentPath);
-      }
-    } else if (a.getType(fieldName) == LazyType.INTEGER
-        && b.getType(fieldName) == LazyType.INTEGER) {
-      if (a.getInt(fieldName) == b.getInt(fieldName)) {
-        successMessages.add(currentPath + "==" + a.getString(fieldName));
-      } else {
-        logInequality(a.getString(fieldName), b.getString(fieldName), currentPath);
-      }
-    } else if (a.getType(fieldName) == LazyType.BOOLEAN
-        && b.getType(fieldName) == LazyType.BOOLEAN) {
-      if (a.getBoolean(fieldName) == b.getBoolean(fieldName)) {
-        successMessages.add(currentPath + "==" + a.getString(fieldName));
-      } else {
-        logInequality(a.getString(fieldName), b.getString(fieldName), currentPath);
-      }
-    } else if (a.getType(fieldName) == LazyType.FLOAT && b.getType(fieldName) == LazyType.FLOAT) {
-      if (a.getString(fieldName).equals(b.getString(fieldName))) {
-        successMessages.add(currentPath + "==" + a.getString(fieldName));
-      } else {
-        logInequality(a.getString(fieldName), b.getString(fieldName), currentPath);
-      }
-    } else if (a.getType(fieldName) == LazyType.NULL && b.getType(fieldName) == LazyType.NULL) {
-      successMessages.add(currentPath + "==" + a.getString(fieldName));
-    } else {
-      inequalityMessages.add(
-          currentPath
-              + " were not of the same type! Expected type "
-              + a.getType(fieldName)
-              + " but got type "
-              + b.getType(fieldName));
-    }
-  }
-
-  private JsonChildren getChildList(LazyArray parent) {
-    JsonChildren jsonChildren = JsonChildren.create();
-    for (int i = 0; i < parent.length(); i++) {
-      switch (parent.getType(i)) {
-        case OBJECT:
-          jsonChildren.addChildObject(parent.getJSONObject(i));
-          break;
-        case ARRAY:
-          jsonChildren.addChildArray(parent.getJSONArray(i));
-          break;
-        case STRING:
-          jsonChildren.addChildValue(parent.getString(i));
-          break;
-        case INTEGER:
-          jsonChildren.addChildValue(parent.getInt(i));
-          break;
-        case BOOLEAN:
-          jsonChildren.addChildValue(parent.getBoolean(i));
-          break;
-        case FLOAT:
-          jsonChildren.addChildValue(parent.getDouble(i));
-          break;
-        default:
-          jsonChildren.addChildValue(null);
-          break;
-      }
-    }
-    return jsonChildren;
-  }
-
-  private void prune(JsonChildren children, String currentPath, String identifier) {
-    List<Object> childNodes = children.getChildren();
-    List<JsonChildren.Type> childTypes = children.getChildrenTypes();
-    Iterator<Object> childIterator = childNodes.iterator();
-    Iterator<JsonChildren.Type> childTypesIterator = childTypes.iterator();
-    int i = 0;
-    for (; childIterator.hasNext() && childTypesIterator.hasNext(); ) {
-      Object child = childIterator.next();
-      JsonChildren.Type childType = childTypesIterator.next();
-      if (childType == JsonChildren.Type.OBJECT
-          && pathIsPruneField(currentPath + BEGIN_BRACKET + i + END_BRACKET, (LazyObject) child)) {
-        if (debugMode) {
-          LOGGER.debug(
-              "Pruning {} {}{}{}{}", identifier, currentPath, BEGIN_BRACKET, i, END_BRACKET);
-        }
-        childIterator.remove();
-        childTypesIterator.remove();
-        children.decrementObjCount();
-      }
-      i++;
-    }
-  }
-
-  private boolean pathIsPruneField(String currentPath, LazyObject node) {
-    for (Map.Entry<String, String> pruneEntry : pruneFields.entrySet()) {
-      String key = pruneEntry.getKey();
-      String value = pruneEntry.getValue();
-
-      String[] fields = key.split(PREDICATE_SEPARATOR);
-      if (fields.length == 0 || fields.length > 2) {
-        // Incorrect formatting
-        return false;
-      }
-      if (pathEquals(currentPath, fields[0])) {
-        LazyObject currentNode = node;
-        String[] childNodes = fields[1].split(SEPARATOR_REGEX);
-        for (int i = 0; i < childNodes.length - 1; i++) {
-          if (currentNode != null && currentNode.getType() == LazyType.OBJECT) {
-            currentNode = currentNode.getJSONObject(childNodes[i]);
-          } else {
-            return false;
-          }
-        }
-        if (currentNode != null) {
-          return getValueAsString(currentNode, childNodes[childNodes.length - 1]).equals(value);
-        }
-      }
-    }
-    return false;
-  }
-
-  private String getValueAsString(LazyObject jsonNode, String fieldName) {
-    switch (jsonNode.getType(fieldName)) {
-      case STRING:
-        return jsonNode.getString(fieldName);
-      case INTEGER:
-        return Integer.toString(jsonNode.getInt(fieldName));
-      case BOOLEAN:
-        return Boolean.toString(jsonNode.getBoolean(fieldName));
-      case FLOAT:
-        return Double.toString(jsonNode.getDouble(fieldName));
-      default:
-        return "null";
-    }
+    comparison().compareValues(LazyJsonNodes.of(a), LazyJsonNodes.of(b), fieldName, currentPath);
   }
 
-  private String getValueAsString(LazyArray jsonNode, int i) {
-    switch (jsonNode.getType(i)) {
-      case STRING:
-        return jsonNode.getString(i);
-      case INTEGER:
-        return Integer.toString(jsonNode.getInt(i));
-      case BOOLEAN:
-        return Boolean.toString(jsonNode.getBoolean(i));
-      case FLOAT:
-        return Double.toString(jsonNode.getDouble(i));
-      default:
-        return "null";
-    }
-  }
-
-  private boolean pathIsIgnoreField(String currentPath) {
-    if (ignoreFields != null && !ignoreFields.isEmpty()) {
-      for (String ignoreField : ignoreFields) {
-        if (pathEquals(currentPath, ignoreField)) {
-          return true;
-        }
-      }
-    }
-    return false;
-  }
-
-  private static boolean pathEquals(String path, String patternedPath) {
-    String[] pathArr = path.split(SEPARATOR_REGEX);
-    String[] ignorePathArr = patternedPath.split(SEPARATOR_REGEX);
-
-    if (pathArr.length != ignorePathArr.length) {
-      return false;
-    }
-
-    for (int i = 0; i < pathArr.length; i++) {
-      String nodePath = pathArr[i];
-      String ignoreNodeArr = ignorePathArr[i];
-      boolean nodeIsArray = nodePath.endsWith(END_BRACKET);
-      boolean ignoreNodeIsArray = ignoreNodeArr.endsWith(END_BRACKET);
-      if (nodeIsArray && ignoreNodeIsArray) {
-        String pathIndex =
-            pathArr[i].substring(
-                pathArr[i].lastIndexOf(BEGIN_BRACKET) + 1, pathArr[i].length() - 1);
-        String ignoreIndex =
-            ignorePathArr[i].substring(
-                ignorePathArr[i].lastIndexOf(BEGIN_BRACKET) + 1, ignorePathArr[i].length() - 1);
-        if (!pathIndex.equals(ignoreIndex) && !ignoreIndex.equals(WILDCARD)) {
-          return false;
-        }
-        nodePath = nodePath.substring(0, nodePath.length() - pathIndex.length() - 2);
-        ignoreNodeArr =
-            ignoreNodeArr.substring(0, ignoreNodeArr.length() - ignoreIndex.length() - 2);
-      }
-      if (!nodePath.equals(ignoreNodeArr)) {
-        return false;
-      }
+  /**
+   * Gets the comparison collecting the results of this instance, building the comparator from the
+   * current settings when first needed.
+   */
+  private Comparison comparison() {
+    if (comparison == null) {
+      comparison = comparator.withDebugMode(debugMode).build().newComparison(listener);
     }
-    return true;
-  }
-
-  private void logInequality(String valueA, String valueB, String currentPath) {
-    inequalityMessages.add(
-        currentPath + " values were not the same! Expected " + valueA + " but got " + valueB);
-  }
-
-  private static String getChildPath(String currentPath, String childName) {
-    return currentPath + NODE_SEPARATOR + childName;
-  }
-
-  private static boolean childIsObject(LazyObject parent, String fieldName) {
-    return parent.getType(fieldName) == LazyType.OBJECT;
-  }
-
-  private static boolean childIsObject(LazyArray parent, int index) {
-    return parent.getType(index) == LazyType.OBJECT;
-  }
-
-  private static boolean childIsArray(LazyObject parent, String fieldName) {
-    return parent.getType(fieldName) == LazyType.ARRAY;
-  }
-
-  private static boolean childIsArray(LazyArray parent, int index) {
-    return parent.getType(index) == LazyType.ARRAY;
+    return comparison;
   }
 
   /**
-   * Sets the global debug mode for JSON comparisons. If set to true, all comparisons will be logged
-   * to the console using an SLF4J implementation.
+   * Sets the global debug mode for JSON comparisons run with JsonEquals. If set to true, all
+   * comparisons will be logged to the console using an SLF4J implementation. A {@link
+   * JsonComparator} has its own debug mode, see {@link JsonComparator.Builder#withDebugMode}.
    *
    * @param debugMode the debug mode boolean value
    */
   public static void setDebugMode(boolean debugMode) {
     JsonEquals.debugMode = debugMode;
   }
+
+  /**
+   * Gets the global debug mode for JSON comparisons run with JsonEquals.
+   *
+   * @return true if comparisons are logged, false otherwise
+   */
+  static boolean isDebugMode() {
+    return debugMode;
+  }
 }
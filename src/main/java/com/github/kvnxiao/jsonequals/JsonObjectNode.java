@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A JSON object as seen by the comparator, independently of the parser which produced it. Fields
+ * holding JSON objects or arrays are accessed as nodes of their own, while primitive values are
+ * read through their parent, so that a backend need not create a node for every value.
+ *
+ * <p>LazyJSON is the default backend; any other parser can be used by implementing this interface
+ * and {@link JsonArrayNode} over its own tree, then creating a {@link JsonRoot} with {@link
+ * JsonRoot#from(JsonObjectNode)}. The {@link #toString()} of a node should render it as JSON text,
+ * as it is used in inequality messages.
+ */
+public interface JsonObjectNode {
+
+  /**
+   * Gets the number of fields of this JSON object.
+   *
+   * @return The number of fields
+   */
+  int length();
+
+  /**
+   * Gets the names of the fields of this JSON object.
+   *
+   * @return An iterator over the field names
+   */
+  Iterator<String> keys();
+
+  /**
+   * Gets the names of the fields of this JSON object as a set.
+   *
+   * @return The set of field names
+   */
+  default Set<String> keySet() {
+    Set<String> keySet = new LinkedHashSet<>();
+    for (Iterator<String> keys = keys(); keys.hasNext(); ) {
+      keySet.add(keys.next());
+    }
+    return keySet;
+  }
+
+  /**
+   * Checks whether this JSON object has a field with the specified name.
+   *
+   * @param key The field name
+   * @return true if the field exists, false otherwise
+   */
+  boolean has(String key);
+
+  /**
+   * Gets the type of the value of a field.
+   *
+   * @param key The field name
+   * @return The type of the value
+   */
+  LazyType getType(String key);
+
+  /**
+   * Gets the JSON object held by a field.
+   *
+   * @param key The field name
+   * @return The JSON object
+   */
+  JsonObjectNode getObject(String key);
+
+  /**
+   * Gets the JSON array held by a field.
+   *
+   * @param key The field name
+   * @return The JSON array
+   */
+  JsonArrayNode getArray(String key);
+
+  /**
+   * Gets the text of the primitive value held by a field: the unescaped content of a string, or the
+   * literal text of a number or boolean.
+   *
+   * @param key The field name
+   * @return The text of the value, or null if the value is null
+   */
+  String getString(String key);
+
+  /**
+   * Gets the integer held by a field.
+   *
+   * @param key The field name
+   * @return The integer value
+   * @throws NumberFormatException if the integer does not fit in a long
+   */
+  long getLong(String key);
+
+  /**
+   * Gets the number held by a field as a double.
+   *
+   * @param key The field name
+   * @return The double value
+   */
+  double getDouble(String key);
+
+  /**
+   * Gets the boolean held by a field.
+   *
+   * @param key The field name
+   * @return The boolean value
+   */
+  boolean getBoolean(String key);
+}
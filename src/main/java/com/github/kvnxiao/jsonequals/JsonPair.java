@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/** A class used to simply hold a source and a comparate {@link JsonRoot} to be compared. */
+public final class JsonPair {
+
+  private final JsonRoot source;
+  private final JsonRoot comparate;
+
+  private JsonPair(JsonRoot source, JsonRoot comparate) {
+    this.source = source;
+    this.comparate = comparate;
+  }
+
+  /**
+   * Creates a new JsonPair.
+   *
+   * @param source The source JsonRoot
+   * @param comparate The JsonRoot to be compared to
+   * @return A new JsonPair instance
+   */
+  public static JsonPair of(JsonRoot source, JsonRoot comparate) {
+    return new JsonPair(source, comparate);
+  }
+
+  public JsonRoot getSource() {
+    return source;
+  }
+
+  public JsonRoot getComparate() {
+    return comparate;
+  }
+}
@@ -18,6 +18,19 @@ package com.github.kvnxiao.jsonequals;
 import static com.github.kvnxiao.jsonequals.Constants.BEGIN_BRACKET;
 import static com.github.kvnxiao.jsonequals.Constants.BEGIN_CURLY;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,13 +39,43 @@ import me.doubledutch.lazyjson.LazyElement;
 import me.doubledutch.lazyjson.LazyObject;
 import me.doubledutch.lazyjson.LazyType;
 
-/** A class representing the root JSON element / file. */
+/**
+ * A class representing the root JSON element / file. JSON text and files are parsed by LazyJSON,
+ * while a tree already parsed by another backend is compared through its {@link JsonObjectNode} or
+ * {@link JsonArrayNode} view.
+ */
 public class JsonRoot {
 
+  /** The number of comparators built by the compareTo methods which are kept for reuse. */
+  private static final int CACHED_COMPARATORS = 32;
+
+  /** The comparators most recently built by the compareTo methods, keyed by their settings. */
+  private static final Map<List<Object>, JsonComparator> COMPARATORS =
+      Collections.synchronizedMap(
+          new LinkedHashMap<List<Object>, JsonComparator>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, JsonComparator> eldest) {
+              return size() > CACHED_COMPARATORS;
+            }
+          });
+
   /** The root element of the JSON object, often denoted by the dollar sign '$'. */
-  private final LazyElement root;
+  private volatile LazyElement root;
+  /** The root element from another parser backend, or null if parsed by LazyJSON. */
+  private final Object node;
   /** The type of the root JSON element, either a JSON object or a JSON array */
   private final LazyType rootType;
+  /**
+   * The UTF-8 bytes of the JSON text, memory-mapped for a file, or null if not created from bytes
+   * or a file.
+   */
+  private final ByteBuffer utf8;
+  /** The raw JSON text, or null if not known. */
+  private String raw;
+  /** The structural digests of the root JSON element, computed when first needed. */
+  private volatile SubtreeDigest digests;
 
   // ------------
   // Constructors
@@ -40,14 +83,30 @@ public class JsonRoot {
 
   private JsonRoot(LazyElement root) {
     this.root = root;
+    this.node = null;
     this.rootType = root.getType();
+    this.utf8 = null;
+  }
+
+  private JsonRoot(Object node, LazyType rootType) {
+    this.root = null;
+    this.node = node;
+    this.rootType = rootType;
+    this.utf8 = null;
   }
 
   private JsonRoot(String raw) {
-    if (raw.startsWith(BEGIN_CURLY)) {
+    this.node = null;
+    this.utf8 = null;
+    this.raw = raw;
+    int i = 0;
+    while (i < raw.length() && isWhitespace(raw.charAt(i))) {
+      i++;
+    }
+    if (raw.startsWith(BEGIN_CURLY, i)) {
       this.rootType = LazyType.OBJECT;
       this.root = new LazyObject(raw);
-    } else if (raw.startsWith(BEGIN_BRACKET)) {
+    } else if (raw.startsWith(BEGIN_BRACKET, i)) {
       this.rootType = LazyType.ARRAY;
       this.root = new LazyArray(raw);
     } else {
@@ -58,6 +117,29 @@ public class JsonRoot {
     }
   }
 
+  private JsonRoot(ByteBuffer utf8) {
+    this.node = null;
+    this.utf8 = utf8;
+    this.root = null;
+    int i = utf8.position();
+    while (i < utf8.limit() && isWhitespace((char) utf8.get(i))) {
+      i++;
+    }
+    byte first = i < utf8.limit() ? utf8.get(i) : 0;
+    if (first == BEGIN_CURLY.charAt(0)) {
+      this.rootType = LazyType.OBJECT;
+    } else if (first == BEGIN_BRACKET.charAt(0)) {
+      this.rootType = LazyType.ARRAY;
+    } else {
+      this.rootType = LazyType.NULL;
+    }
+  }
+
+  /** Checks for the whitespace allowed before the root element, the same for text and bytes. */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
   /**
    * Creates a JsonRoot instance using the provided LazyElement as the root JSON element.
    *
@@ -68,6 +150,28 @@ public class JsonRoot {
     return new JsonRoot(root);
   }
 
+  /**
+   * Creates a JsonRoot instance using a JSON object parsed by another backend as the root JSON
+   * element. The tree is compared as it is, without being converted or parsed again.
+   *
+   * @param root The root JSON object
+   * @return A new JsonRoot instance
+   */
+  public static JsonRoot from(JsonObjectNode root) {
+    return new JsonRoot(root, LazyType.OBJECT);
+  }
+
+  /**
+   * Creates a JsonRoot instance using a JSON array parsed by another backend as the root JSON
+   * element. The tree is compared as it is, without being converted or parsed again.
+   *
+   * @param root The root JSON array
+   * @return A new JsonRoot instance
+   */
+  public static JsonRoot from(JsonArrayNode root) {
+    return new JsonRoot(root, LazyType.ARRAY);
+  }
+
   /**
    * Creates a JsonRoot instance using the provided raw JSON string.
    *
@@ -78,6 +182,39 @@ public class JsonRoot {
     return new JsonRoot(raw);
   }
 
+  /**
+   * Creates a JsonRoot instance using the provided JSON text encoded in UTF-8. The bytes are not
+   * parsed, nor copied: comparisons with a {@link JsonComparator} between two JsonRoots created
+   * from bytes or files read both directly from their bytes, and the text is only decoded into a
+   * string once {@link #getRoot()} is called. The array must not be modified afterwards.
+   *
+   * @param utf8 The UTF-8 bytes of the raw JSON text
+   * @return A new JsonRoot instance
+   */
+  public static JsonRoot from(byte[] utf8) {
+    return new JsonRoot(ByteBuffer.wrap(utf8));
+  }
+
+  /**
+   * Creates a JsonRoot instance using the provided JSON file encoded in UTF-8. The file is mapped
+   * into memory rather than read onto the heap: comparisons with a {@link JsonComparator} between
+   * two JsonRoots created from files read both files directly from the mapped bytes, and the file
+   * is only decoded into a string once {@link #getRoot()} is called.
+   *
+   * @param path The path of the JSON file
+   * @return A new JsonRoot instance
+   * @throws IOException if the file could not be mapped into memory
+   */
+  public static JsonRoot from(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File is too large to be mapped into memory: " + path);
+      }
+      return new JsonRoot(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
   // ------------------
   // Comparator Methods
   // ------------------
@@ -94,26 +231,50 @@ public class JsonRoot {
    */
   public JsonCompareResult compareTo(
       JsonRoot other, Set<String> ignoreFields, Map<String, String> pruneFields) {
-    if (other != null) {
-      if (this.isRootObject() && other.isRootObject()) {
-        // JSON object node
-        return JsonEquals.ofType(LazyType.OBJECT)
-            .withSource(this.getRoot())
-            .withComparate(other.getRoot())
-            .withIgnoreFields(ignoreFields)
-            .withPruneFields(pruneFields)
-            .compare();
-      } else if (this.isRootArray() && other.isRootArray()) {
-        // JSON array node
-        return JsonEquals.ofType(LazyType.ARRAY)
-            .withSource(this.getRoot())
-            .withComparate(other.getRoot())
-            .withIgnoreFields(ignoreFields)
-            .withPruneFields(pruneFields)
-            .compare();
-      }
+    return compareTo(other, ignoreFields, pruneFields, JsonEquals.ALL_INEQUALITIES);
+  }
+
+  /**
+   * Compares this JsonRoot with another JsonRoot object, stopping as soon as the specified number
+   * of inequalities have been found. Checks for deep-equality, with optionally provided fields to
+   * ignore from comparison, and "stale" fields to prune and remove before comparison.
+   *
+   * <p>The comparator compiled from these settings is kept for reuse by later calls with the same
+   * settings, but only for a few distinct settings at a time; to compare many documents with the
+   * same rules, build a {@link JsonComparator} once and use {@link #compareTo(JsonRoot,
+   * JsonComparator)}.
+   *
+   * @param other The other JsonRoot to compare to
+   * @param ignoreFields Optional JSON fields to ignore from the comparison
+   * @param pruneFields Optional JSON fields to prune before comparison
+   * @param maxInequalities The maximum number of inequalities to find, or {@link
+   *     JsonEquals#ALL_INEQUALITIES} for a complete comparison
+   * @return The json comparison result
+   */
+  public JsonCompareResult compareTo(
+      JsonRoot other,
+      Set<String> ignoreFields,
+      Map<String, String> pruneFields,
+      int maxInequalities) {
+    // The rules are copied, so that the cached comparator is not changed by later changes to them
+    Set<String> ignore =
+        ignoreFields == null || ignoreFields.isEmpty() ? null : new HashSet<>(ignoreFields);
+    Map<String, String> prune =
+        pruneFields == null || pruneFields.isEmpty() ? null : new HashMap<>(pruneFields);
+    boolean debugMode = JsonEquals.isDebugMode();
+    List<Object> settings = Arrays.asList(ignore, prune, maxInequalities, debugMode);
+    JsonComparator comparator = COMPARATORS.get(settings);
+    if (comparator == null) {
+      comparator =
+          JsonComparator.builder()
+              .withIgnoreFields(ignore)
+              .withPruneFields(prune)
+              .withMaxInequalities(maxInequalities)
+              .withDebugMode(debugMode)
+              .build();
+      COMPARATORS.put(settings, comparator);
     }
-    return null;
+    return comparator.compare(this, other);
   }
 
   /**
@@ -126,6 +287,29 @@ public class JsonRoot {
     return compareTo(other, null, null);
   }
 
+  /**
+   * Compares this JsonRoot with another JsonRoot object using a comparator which has already been
+   * built, and which may be shared between comparisons and threads.
+   *
+   * @param other The other JsonRoot to compare to
+   * @param comparator The comparator to compare with
+   * @return The json comparison result, or null if both root elements are not of the same type
+   */
+  public JsonCompareResult compareTo(JsonRoot other, JsonComparator comparator) {
+    return comparator.compare(this, other);
+  }
+
+  /**
+   * Compares this JsonRoot with another JsonRoot object, stopping at the first inequality found.
+   * Use this when only {@link JsonCompareResult#isEqual()} is needed.
+   *
+   * @param other The other JsonRoot to compare to
+   * @return The json comparison result, holding at most one inequality message
+   */
+  public JsonCompareResult compareToFailFast(JsonRoot other) {
+    return compareTo(other, null, null, 1);
+  }
+
   /**
    * Compares this JsonRoot with another JsonRoot object. Checks for deep-equality, with optionally
    * provided fields to ignore from comparison.
@@ -150,17 +334,105 @@ public class JsonRoot {
     return compareTo(other, null, pruneFields);
   }
 
+  /**
+   * Opens a reader over the UTF-8 bytes of this JsonRoot.
+   *
+   * @return A new reader, or null if this JsonRoot was not created from bytes or a file
+   */
+  Reader openReader() {
+    return utf8 == null ? null : new ByteBufferReader(utf8.duplicate());
+  }
+
+  /**
+   * Gets a view of the UTF-8 bytes of this JsonRoot, with its own position and limit.
+   *
+   * @return The UTF-8 bytes, or null if this JsonRoot was not created from bytes or a file
+   */
+  ByteBuffer getBytes() {
+    return utf8 == null ? null : utf8.duplicate();
+  }
+
   // -----------------
   // Getters / Setters
   // -----------------
 
   /**
-   * Gets the LazyElement root of this JsonRoot.
+   * Gets the LazyElement root of this JsonRoot. A root created from another parser backend is
+   * parsed again by LazyJSON from its JSON text the first time this is called.
+   *
+   * <p>A root created from bytes or a file is decoded into a string the first time this is called,
+   * which is then held for as long as this JsonRoot: for a mapped file, this reads the whole file
+   * onto the heap, taking about twice its size in memory. Comparing two such roots with a {@link
+   * JsonComparator} reads their bytes directly instead, whenever the comparison allows it.
    *
    * @return The root JSON element as a LazyElement type
    */
   public LazyElement getRoot() {
-    return this.root;
+    LazyElement root = this.root;
+    if (root == null && (utf8 != null || node != null) && rootType != LazyType.NULL) {
+      synchronized (this) {
+        root = this.root;
+        if (root == null) {
+          String raw =
+              utf8 != null
+                  ? StandardCharsets.UTF_8.decode(utf8.duplicate()).toString()
+                  : node.toString();
+          root = rootType == LazyType.OBJECT ? new LazyObject(raw) : new LazyArray(raw);
+          if (utf8 != null) {
+            this.raw = raw;
+          }
+          this.root = root;
+        }
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Gets the root JSON object as seen by the comparator, from whichever backend created it.
+   *
+   * @return The root JSON object
+   */
+  JsonObjectNode getRootObject() {
+    return node != null ? (JsonObjectNode) node : LazyJsonNodes.of((LazyObject) getRoot());
+  }
+
+  /**
+   * Gets the root JSON array as seen by the comparator, from whichever backend created it.
+   *
+   * @return The root JSON array
+   */
+  JsonArrayNode getRootArray() {
+    return node != null ? (JsonArrayNode) node : LazyJsonNodes.of((LazyArray) getRoot());
+  }
+
+  /**
+   * Gets the structural digests of the root JSON element, computing them on first use.
+   *
+   * @return The digest of the root JSON element, or null if it is neither an object nor an array
+   */
+  SubtreeDigest getDigests() {
+    SubtreeDigest digests = this.digests;
+    if (digests == null && rootType != LazyType.NULL) {
+      synchronized (this) {
+        digests = this.digests;
+        if (digests == null) {
+          if (node == null) {
+            getRoot();
+          }
+          // Digests are computed from the raw text when known, without materializing any node
+          digests = raw != null ? SubtreeDigest.of(raw) : null;
+          if (digests == null) {
+            digests =
+                isRootObject()
+                    ? SubtreeDigest.of(getRootObject())
+                    : SubtreeDigest.of(getRootArray());
+          }
+          this.digests = digests;
+        }
+      }
+    }
+    return digests;
   }
 
   /**
@@ -192,6 +464,6 @@ public class JsonRoot {
    */
   @Override
   public String toString() {
-    return this.root.toString();
+    return node != null ? node.toString() : getRoot().toString();
   }
 }
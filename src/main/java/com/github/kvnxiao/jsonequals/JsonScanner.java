@@ -0,0 +1,348 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A pull scanner reading a JSON document one token at a time, validating its structure while
+ * holding only a stack of the enclosing containers. Subclasses supply the characters of the
+ * document and decide what to keep of the text of each field name and value, through the hooks
+ * called as it is scanned.
+ */
+abstract class JsonScanner {
+
+  /** Enum which specifies the kind of token read. */
+  enum Token {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    FIELD_NAME,
+    VALUE,
+    END_DOCUMENT
+  }
+
+  /** The enclosing containers, true for objects and false for arrays. */
+  private boolean[] containers = new boolean[32];
+
+  private int depth = 0;
+  private boolean afterValue = false;
+  private boolean afterComma = false;
+  private boolean afterName = false;
+  private LazyType valueType = null;
+
+  /**
+   * Reads the next token.
+   *
+   * @return The token read
+   * @throws IOException if the document could not be read or is not well-formed
+   */
+  final Token next() throws IOException {
+    int c = skipWhitespace();
+    startToken();
+    if (depth == 0) {
+      if (afterValue) {
+        if (c >= 0) {
+          throw error("Unexpected character after the root element");
+        }
+        return Token.END_DOCUMENT;
+      }
+      return readValue(c);
+    }
+
+    boolean inObject = containers[depth - 1];
+    if (afterName) {
+      afterName = false;
+      return readValue(c);
+    }
+    if (afterValue) {
+      if (c == ',') {
+        advance();
+        afterValue = false;
+        afterComma = true;
+        c = skipWhitespace();
+        startToken();
+      } else if (c == (inObject ? '}' : ']')) {
+        advance();
+        return close();
+      } else {
+        throw error("Expected ',' or the end of the enclosing " + (inObject ? "object" : "array"));
+      }
+    } else if (!afterComma && c == (inObject ? '}' : ']')) {
+      advance();
+      return close();
+    }
+    afterComma = false;
+
+    if (inObject) {
+      if (c != '"') {
+        throw error("Expected a field name");
+      }
+      advance();
+      readString();
+      if (skipWhitespace() != ':') {
+        throw error("Expected ':' after a field name");
+      }
+      advance();
+      afterName = true;
+      return Token.FIELD_NAME;
+    }
+    return readValue(c);
+  }
+
+  /**
+   * Gets the type of the last {@link Token#VALUE} read.
+   *
+   * @return The type of the value
+   */
+  final LazyType valueType() {
+    return valueType;
+  }
+
+  /**
+   * Skips the value starting with the specified token, which has just been read.
+   *
+   * @param start The first token of the value
+   * @throws IOException if the document could not be read or is not well-formed
+   */
+  final void skipValue(Token start) throws IOException {
+    if (start == Token.BEGIN_OBJECT || start == Token.BEGIN_ARRAY) {
+      skipRest();
+    }
+  }
+
+  /**
+   * Skips the rest of the object or array currently being read, up to and including its end.
+   *
+   * @throws IOException if the document could not be read or is not well-formed
+   */
+  final void skipRest() throws IOException {
+    int target = depth - 1;
+    while (depth > target) {
+      next();
+    }
+  }
+
+  /**
+   * Gets the character at the current position without consuming it.
+   *
+   * @return The character, or -1 at the end of the document
+   * @throws IOException if the document could not be read
+   */
+  abstract int peek() throws IOException;
+
+  /** Consumes the character last returned by {@link #peek()}. */
+  abstract void advance();
+
+  /**
+   * Gets the offset of the current position within the document, for error messages.
+   *
+   * @return The current offset
+   */
+  abstract long offset();
+
+  /** Called at the start of each token, past any whitespace. */
+  void startToken() {}
+
+  /**
+   * Called at the start of the text of a field name or value, past the opening quote of a string.
+   */
+  abstract void startText();
+
+  /**
+   * Called at the end of the text of a field name or value, before the closing quote of a string.
+   */
+  void endText() {}
+
+  /**
+   * Called for each character of the text of a field name or value, other than escape sequences.
+   *
+   * @param c The character
+   */
+  void appendChar(int c) {}
+
+  /**
+   * Called for each escape sequence within a string.
+   *
+   * @param c The character the escape sequence stands for
+   */
+  abstract void appendEscape(char c);
+
+  /**
+   * Decodes the character which follows a backslash in an escape sequence other than {@code \\u}.
+   *
+   * @param escape The character following the backslash
+   * @return The character the escape sequence stands for, or -1 if it is not a valid escape
+   */
+  static int unescape(int escape) {
+    switch (escape) {
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case '"':
+      case '\\':
+      case '/':
+        return escape;
+      default:
+        return -1;
+    }
+  }
+
+  final IOException error(String message) {
+    return new IOException(message + " at offset " + offset());
+  }
+
+  private Token readValue(int c) throws IOException {
+    switch (c) {
+      case '{':
+        advance();
+        return open(true);
+      case '[':
+        advance();
+        return open(false);
+      case '"':
+        advance();
+        readString();
+        valueType = LazyType.STRING;
+        break;
+      case 't':
+        readLiteral("true");
+        valueType = LazyType.BOOLEAN;
+        break;
+      case 'f':
+        readLiteral("false");
+        valueType = LazyType.BOOLEAN;
+        break;
+      case 'n':
+        readLiteral("null");
+        valueType = LazyType.NULL;
+        break;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          readNumber();
+          break;
+        }
+        throw error(c < 0 ? "Unexpected end of document" : "Unexpected character");
+    }
+    afterValue = true;
+    return Token.VALUE;
+  }
+
+  private Token open(boolean object) {
+    if (depth == containers.length) {
+      containers = Arrays.copyOf(containers, depth * 2);
+    }
+    containers[depth++] = object;
+    afterValue = false;
+    afterComma = false;
+    return object ? Token.BEGIN_OBJECT : Token.BEGIN_ARRAY;
+  }
+
+  private Token close() {
+    boolean object = containers[--depth];
+    afterValue = true;
+    afterComma = false;
+    return object ? Token.END_OBJECT : Token.END_ARRAY;
+  }
+
+  /** Reads a string, whose opening quote has been consumed, validating its escapes. */
+  private void readString() throws IOException {
+    startText();
+    while (true) {
+      int c = peek();
+      if (c < 0) {
+        throw error("Unterminated string");
+      } else if (c == '"') {
+        endText();
+        advance();
+        return;
+      }
+      advance();
+      if (c != '\\') {
+        appendChar(c);
+        continue;
+      }
+      int escape = peek();
+      advance();
+      if (escape == 'u') {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+          int digit = Character.digit(peek(), 16);
+          if (digit < 0) {
+            throw error("Invalid unicode escape");
+          }
+          advance();
+          code = (code << 4) | digit;
+        }
+        appendEscape((char) code);
+      } else {
+        int unescaped = unescape(escape);
+        if (unescaped < 0) {
+          throw error("Invalid escape character");
+        }
+        appendEscape((char) unescaped);
+      }
+    }
+  }
+
+  private void readNumber() throws IOException {
+    startText();
+    valueType = LazyType.INTEGER;
+    int c = peek();
+    while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+      if (c == '.' || c == 'e' || c == 'E') {
+        valueType = LazyType.FLOAT;
+      }
+      appendChar(c);
+      advance();
+      c = peek();
+    }
+    endText();
+  }
+
+  private void readLiteral(String literal) throws IOException {
+    startText();
+    for (int i = 0; i < literal.length(); i++) {
+      int c = peek();
+      if (c != literal.charAt(i)) {
+        throw error("Unexpected character");
+      }
+      appendChar(c);
+      advance();
+    }
+    endText();
+  }
+
+  private int skipWhitespace() throws IOException {
+    int c = peek();
+    while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+      advance();
+      c = peek();
+    }
+    return c;
+  }
+}
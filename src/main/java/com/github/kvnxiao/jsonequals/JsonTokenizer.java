@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A pull tokenizer reading a JSON document from a {@link Reader} one token at a time. Only a fixed
+ * size buffer and a stack of the enclosing containers are held, so memory use is bounded by the
+ * nesting depth of the document rather than by its size.
+ */
+final class JsonTokenizer extends JsonScanner {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Reader reader;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private long offset = 0;
+
+  private final StringBuilder text = new StringBuilder();
+  private StringBuilder capture = null;
+
+  JsonTokenizer(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Gets the text of the last {@link Token#FIELD_NAME} or {@link Token#VALUE} read: the decoded
+   * characters of a string, or the literal of any other value.
+   *
+   * @return The text of the token
+   */
+  String text() {
+    return text.toString();
+  }
+
+  /**
+   * Reads the rest of the object or array currently being read, up to and including its end, and
+   * returns its raw text appended to the specified prefix.
+   *
+   * @param prefix The raw text of the container read so far
+   * @return The raw text of the container
+   * @throws IOException if the document could not be read or is not well-formed
+   */
+  String readRest(CharSequence prefix) throws IOException {
+    capture = new StringBuilder(prefix);
+    skipRest();
+    String raw = capture.toString();
+    capture = null;
+    return raw;
+  }
+
+  /**
+   * Appends the specified string to a builder as a quoted JSON string.
+   *
+   * @param builder The builder to append to
+   * @param value The string to quote
+   * @return The builder
+   */
+  static StringBuilder appendQuoted(StringBuilder builder, String value) {
+    builder.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      } else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int) c));
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder.append('"');
+  }
+
+  @Override
+  int peek() throws IOException {
+    if (position == limit) {
+      offset += limit;
+      position = 0;
+      limit = Math.max(reader.read(buffer, 0, BUFFER_SIZE), 0);
+      if (limit == 0) {
+        return -1;
+      }
+    }
+    return buffer[position];
+  }
+
+  @Override
+  void advance() {
+    if (capture != null) {
+      capture.append(buffer[position]);
+    }
+    position++;
+  }
+
+  @Override
+  long offset() {
+    return offset + position;
+  }
+
+  @Override
+  void startText() {
+    text.setLength(0);
+  }
+
+  @Override
+  void appendChar(int c) {
+    text.append((char) c);
+  }
+
+  @Override
+  void appendEscape(char c) {
+    text.append(c);
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import me.doubledutch.lazyjson.LazyArray;
+import me.doubledutch.lazyjson.LazyObject;
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * The default backend of the comparator, viewing LazyJSON elements as {@link JsonObjectNode}s and
+ * {@link JsonArrayNode}s. Each wrapper only holds its LazyJSON element, and every call is passed
+ * straight through to it.
+ */
+final class LazyJsonNodes {
+
+  private LazyJsonNodes() {}
+
+  /**
+   * Views a LazyJSON object as a JSON object node.
+   *
+   * @param object The LazyJSON object
+   * @return The JSON object node, or null if the object is null
+   */
+  static JsonObjectNode of(LazyObject object) {
+    return object == null ? null : new ObjectNode(object);
+  }
+
+  /**
+   * Views a LazyJSON array as a JSON array node.
+   *
+   * @param array The LazyJSON array
+   * @return The JSON array node, or null if the array is null
+   */
+  static JsonArrayNode of(LazyArray array) {
+    return array == null ? null : new ArrayNode(array);
+  }
+
+  /**
+   * Gets the LazyJSON object behind a JSON object node, parsing it again from its JSON text if the
+   * node comes from another backend.
+   *
+   * @param node The JSON object node
+   * @return The LazyJSON object, or null if the node is null
+   */
+  static LazyObject toLazyObject(JsonObjectNode node) {
+    if (node instanceof ObjectNode) {
+      return ((ObjectNode) node).object;
+    }
+    return node == null ? null : new LazyObject(node.toString());
+  }
+
+  /**
+   * Gets the LazyJSON array behind a JSON array node, parsing it again from its JSON text if the
+   * node comes from another backend.
+   *
+   * @param node The JSON array node
+   * @return The LazyJSON array, or null if the node is null
+   */
+  static LazyArray toLazyArray(JsonArrayNode node) {
+    if (node instanceof ArrayNode) {
+      return ((ArrayNode) node).array;
+    }
+    return node == null ? null : new LazyArray(node.toString());
+  }
+
+  private static final class ObjectNode implements JsonObjectNode {
+
+    private final LazyObject object;
+
+    private ObjectNode(LazyObject object) {
+      this.object = object;
+    }
+
+    @Override
+    public int length() {
+      return object.length();
+    }
+
+    @Override
+    public Iterator<String> keys() {
+      return object.keys();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return object.keySet();
+    }
+
+    @Override
+    public boolean has(String key) {
+      return object.has(key);
+    }
+
+    @Override
+    public LazyType getType(String key) {
+      return object.getType(key);
+    }
+
+    @Override
+    public JsonObjectNode getObject(String key) {
+      return of(object.getJSONObject(key));
+    }
+
+    @Override
+    public JsonArrayNode getArray(String key) {
+      return of(object.getJSONArray(key));
+    }
+
+    @Override
+    public String getString(String key) {
+      return object.getString(key);
+    }
+
+    @Override
+    public long getLong(String key) {
+      return object.getLong(key);
+    }
+
+    @Override
+    public double getDouble(String key) {
+      return object.getDouble(key);
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+      return object.getBoolean(key);
+    }
+
+    @Override
+    public String toString() {
+      return object.toString();
+    }
+  }
+
+  private static final class ArrayNode implements JsonArrayNode {
+
+    private final LazyArray array;
+
+    private ArrayNode(LazyArray array) {
+      this.array = array;
+    }
+
+    @Override
+    public int length() {
+      return array.length();
+    }
+
+    @Override
+    public LazyType getType(int index) {
+      return array.getType(index);
+    }
+
+    @Override
+    public JsonObjectNode getObject(int index) {
+      return of(array.getJSONObject(index));
+    }
+
+    @Override
+    public JsonArrayNode getArray(int index) {
+      return of(array.getJSONArray(index));
+    }
+
+    @Override
+    public String getString(int index) {
+      return array.getString(index);
+    }
+
+    @Override
+    public long getLong(int index) {
+      return array.getLong(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return array.getDouble(index);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+      return array.getBoolean(index);
+    }
+
+    @Override
+    public String toString() {
+      return array.toString();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * Specifies when two floating point JSON numbers are considered equal. Integers are always compared
+ * exactly as 64-bit values, falling back to arbitrary precision for larger values, so that large
+ * ids never compare as equal by overflowing or rounding. Integers and floating point numbers are
+ * never equal to one another, as they are values of different types.
+ */
+public final class NumericTolerance {
+
+  /** Floating point numbers are equal if they parse to the same double, so 1.0 equals 1.00. */
+  public static final NumericTolerance DOUBLE = new NumericTolerance(Mode.DOUBLE, 0);
+
+  /**
+   * Floating point numbers are equal if they hold the same decimal value, at any precision, so 1.0
+   * equals 1.00 but 0.1 does not equal 0.10000000000000000001.
+   */
+  public static final NumericTolerance EXACT = new NumericTolerance(Mode.EXACT, 0);
+
+  private enum Mode {
+    DOUBLE,
+    EXACT,
+    ABSOLUTE,
+    RELATIVE
+  }
+
+  private final Mode mode;
+  private final double epsilon;
+
+  private NumericTolerance(Mode mode, double epsilon) {
+    this.mode = mode;
+    this.epsilon = epsilon;
+  }
+
+  /**
+   * Creates a tolerance under which floating point numbers are equal if they differ by at most the
+   * specified amount.
+   *
+   * @param epsilon The largest difference between two equal numbers
+   * @return A new NumericTolerance instance
+   */
+  public static NumericTolerance absolute(double epsilon) {
+    return new NumericTolerance(Mode.ABSOLUTE, checkEpsilon(epsilon));
+  }
+
+  /**
+   * Creates a tolerance under which floating point numbers are equal if they differ by at most the
+   * specified fraction of the larger of their magnitudes.
+   *
+   * @param epsilon The largest relative difference between two equal numbers
+   * @return A new NumericTolerance instance
+   */
+  public static NumericTolerance relative(double epsilon) {
+    return new NumericTolerance(Mode.RELATIVE, checkEpsilon(epsilon));
+  }
+
+  /**
+   * Checks whether two floating point numbers, as read with {@link
+   * JsonObjectNode#getDouble(String)}, are equal. Must not be called with {@link #EXACT}, which
+   * compares decimal values instead.
+   *
+   * @param a The first number
+   * @param b The second number
+   * @return true if the numbers are equal under this tolerance, false otherwise
+   */
+  boolean matches(double a, double b) {
+    switch (mode) {
+      case ABSOLUTE:
+        return Math.abs(a - b) <= epsilon;
+      case RELATIVE:
+        return Math.abs(a - b) <= epsilon * Math.max(Math.abs(a), Math.abs(b));
+      default:
+        return a == b;
+    }
+  }
+
+  /**
+   * Checks whether floating point numbers are compared within a tolerance, in which case numbers
+   * which are not equal may still match.
+   *
+   * @return true for an absolute or relative tolerance, false otherwise
+   */
+  boolean isTolerant() {
+    return mode == Mode.ABSOLUTE || mode == Mode.RELATIVE;
+  }
+
+  /**
+   * Checks whether floating point numbers are compared by their exact decimal values, which needs
+   * their text rather than their double values.
+   *
+   * @return true for {@link #EXACT}, false otherwise
+   */
+  boolean isExact() {
+    return mode == Mode.EXACT;
+  }
+
+  /**
+   * Checks whether two values read with one of the valueOf methods are equal.
+   *
+   * @param a The first value, may be null
+   * @param b The second value, may be null
+   * @return true if the values are equal, false otherwise
+   */
+  boolean matches(Object a, Object b) {
+    if (a instanceof Double && b instanceof Double) {
+      return matches((double) (Double) a, (double) (Double) b);
+    } else if (a instanceof BigDecimal && b instanceof BigDecimal) {
+      return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+    }
+    return a == null ? b == null : a.equals(b);
+  }
+
+  /**
+   * Converts a value read with one of the valueOf methods into a form which is the same for any two
+   * equal values, for hashing.
+   *
+   * @param value The value, may be null
+   * @return The value to hash, may be null
+   */
+  Object hashKey(Object value) {
+    if (value instanceof Double) {
+      // Numbers within a tolerance of one another cannot be hashed alike, so only their type is
+      if (isTolerant()) {
+        return Double.class;
+      }
+      double number = (Double) value;
+      return number == 0 ? 0.0 : value;
+    } else if (value instanceof BigDecimal) {
+      BigDecimal number = (BigDecimal) value;
+      return number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+    }
+    return value;
+  }
+
+  /**
+   * Reads a primitive element of a JSON array as the value it is compared by: a String, an Integer
+   * or Long (or a BigInteger beyond 64 bits), a Double (or a BigDecimal with {@link #EXACT}), a
+   * Boolean, or null.
+   *
+   * @param array The JSON array
+   * @param index The index of the element
+   * @return The value of the element
+   */
+  Object valueOf(JsonArrayNode array, int index) {
+    switch (array.getType(index)) {
+      case STRING:
+        return array.getString(index);
+      case INTEGER:
+        try {
+          return integer(array.getLong(index));
+        } catch (NumberFormatException e) {
+          return new BigInteger(array.getString(index));
+        }
+      case FLOAT:
+        return mode == Mode.EXACT
+            ? new BigDecimal(array.getString(index))
+            : (Object) array.getDouble(index);
+      case BOOLEAN:
+        return array.getBoolean(index);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Reads a primitive field of a JSON object as the value it is compared by.
+   *
+   * @param object The JSON object
+   * @param fieldName The name of the field
+   * @return The value of the field
+   * @see #valueOf(JsonArrayNode, int)
+   */
+  Object valueOf(JsonObjectNode object, String fieldName) {
+    switch (object.getType(fieldName)) {
+      case STRING:
+        return object.getString(fieldName);
+      case INTEGER:
+        try {
+          return integer(object.getLong(fieldName));
+        } catch (NumberFormatException e) {
+          return new BigInteger(object.getString(fieldName));
+        }
+      case FLOAT:
+        return mode == Mode.EXACT
+            ? new BigDecimal(object.getString(fieldName))
+            : (Object) object.getDouble(fieldName);
+      case BOOLEAN:
+        return object.getBoolean(fieldName);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Converts the text of a primitive JSON value into the value it is compared by.
+   *
+   * @param type The type of the value
+   * @param text The decoded text of a string, or the literal of any other value
+   * @return The value
+   * @see #valueOf(JsonArrayNode, int)
+   */
+  Object valueOf(LazyType type, String text) {
+    switch (type) {
+      case STRING:
+        return text;
+      case INTEGER:
+        try {
+          return integer(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+          return new BigInteger(text);
+        }
+      case FLOAT:
+        return mode == Mode.EXACT ? new BigDecimal(text) : (Object) Double.parseDouble(text);
+      case BOOLEAN:
+        return Boolean.parseBoolean(text);
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return isTolerant() ? mode + "(" + epsilon + ")" : mode.name();
+  }
+
+  /** Boxes integers which fit into an int as an Integer, as array values always were. */
+  private static Object integer(long value) {
+    return (int) value == value ? (Object) (int) value : (Object) value;
+  }
+
+  private static double checkEpsilon(double epsilon) {
+    if (!(epsilon >= 0)) {
+      throw new IllegalArgumentException("epsilon must not be negative");
+    }
+    return epsilon;
+  }
+}
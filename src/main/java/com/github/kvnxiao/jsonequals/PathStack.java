@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable stack of path segments tracking the current JSON node path during a traversal. Pushing
+ * and popping a segment does not allocate, and the path is only materialized into segments or a
+ * string when it needs to be reported.
+ */
+public final class PathStack {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** A source of child key names which are only decoded once the path is materialized. */
+  interface KeySource {
+
+    /**
+     * Decodes the child key name held within the specified span.
+     *
+     * @param start The start of the span, inclusive
+     * @param end The end of the span, exclusive
+     * @return The child key name
+     */
+    String key(int start, int end);
+  }
+
+  /** Child key names, or null where the segment is an array index or a key span. */
+  private String[] keys = new String[DEFAULT_CAPACITY];
+
+  /** The sources of key spans, or null where the segment is not a key span. */
+  private KeySource[] sources = new KeySource[DEFAULT_CAPACITY];
+
+  /** Array indices, or the start of each key span. */
+  private int[] indices = new int[DEFAULT_CAPACITY];
+
+  /** The end of each key span. */
+  private int[] ends = new int[DEFAULT_CAPACITY];
+
+  private int depth = 0;
+
+  /**
+   * Gets the number of segments below the root.
+   *
+   * @return The depth of the current path
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * Pushes a child key segment onto the path.
+   *
+   * @param key The child key name
+   */
+  public void push(String key) {
+    ensureCapacity();
+    keys[depth] = key;
+    sources[depth] = null;
+    depth++;
+  }
+
+  /**
+   * Pushes a child key segment onto the path, whose name is only decoded from its source if the
+   * path is materialized.
+   *
+   * @param source The source holding the child key name
+   * @param start The start of the span holding the child key name
+   * @param end The end of the span holding the child key name
+   */
+  void push(KeySource source, int start, int end) {
+    ensureCapacity();
+    keys[depth] = null;
+    sources[depth] = source;
+    indices[depth] = start;
+    ends[depth] = end;
+    depth++;
+  }
+
+  /**
+   * Pushes an array index segment onto the path.
+   *
+   * @param index The array index
+   */
+  public void push(int index) {
+    ensureCapacity();
+    keys[depth] = null;
+    sources[depth] = null;
+    indices[depth] = index;
+    depth++;
+  }
+
+  /** Pops the last segment off the path. */
+  public void pop() {
+    depth--;
+    keys[depth] = null;
+    sources[depth] = null;
+  }
+
+  /**
+   * Creates a copy of this path which can be pushed and popped independently.
+   *
+   * @return A new PathStack holding the same segments
+   */
+  public PathStack copy() {
+    PathStack copy = new PathStack();
+    copy.keys = Arrays.copyOf(keys, keys.length);
+    copy.sources = Arrays.copyOf(sources, sources.length);
+    copy.indices = Arrays.copyOf(indices, indices.length);
+    copy.ends = Arrays.copyOf(ends, ends.length);
+    copy.depth = depth;
+    return copy;
+  }
+
+  /**
+   * Replaces the current path with the specified dot-notated JSON node path.
+   *
+   * @param path The JSON node path, e.g. {@code $.data[3].id}
+   */
+  public void reset(String path) {
+    while (depth > 0) {
+      pop();
+    }
+    List<Object> segments = PathTrie.parse(path);
+    if (segments == null) {
+      return;
+    }
+    for (Object segment : segments) {
+      if (segment instanceof Integer) {
+        push((Integer) segment);
+      } else if (segment instanceof String) {
+        push((String) segment);
+      }
+    }
+  }
+
+  /**
+   * Materializes the current path into an array of segments: a String for each child key and an
+   * Integer for each array index.
+   *
+   * @return The path segments, excluding the root
+   */
+  public Object[] toSegments() {
+    Object[] segments = new Object[depth];
+    for (int i = 0; i < depth; i++) {
+      if (keys[i] != null) {
+        segments[i] = keys[i];
+      } else if (sources[i] != null) {
+        segments[i] = sources[i].key(indices[i], ends[i]);
+      } else {
+        segments[i] = Integer.valueOf(indices[i]);
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Renders the current path into a dot-notated JSON node path.
+   *
+   * @return The JSON node path, e.g. {@code $.data[3].id}
+   */
+  @Override
+  public String toString() {
+    return Difference.renderPath(toSegments());
+  }
+
+  private void ensureCapacity() {
+    if (depth == keys.length) {
+      keys = Arrays.copyOf(keys, depth * 2);
+      sources = Arrays.copyOf(sources, depth * 2);
+      indices = Arrays.copyOf(indices, depth * 2);
+      ends = Arrays.copyOf(ends, depth * 2);
+    }
+  }
+}
@@ -0,0 +1,458 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.BEGIN_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.END_BRACKET;
+import static com.github.kvnxiao.jsonequals.Constants.NODE_SEPARATOR;
+import static com.github.kvnxiao.jsonequals.Constants.PREDICATE_SEPARATOR;
+import static com.github.kvnxiao.jsonequals.Constants.ROOT_NAME;
+import static com.github.kvnxiao.jsonequals.Constants.WILDCARD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A compiled, deterministic trie of dot-notated JSON path patterns (e.g. {@code $.data[*].id}).
+ *
+ * <p>Patterns are split into segments once at compile time, and wildcard array indices are merged
+ * into every explicit index so that each step of a traversal is a single lookup. A traversal holds
+ * on to the {@link Node} for its current path and advances it with {@link Node#child(String)} or
+ * {@link Node#element(int)} as it descends; a {@code null} node means that no pattern can match the
+ * current path or any of its descendants.
+ *
+ * <p>Each node carries every rule attached to its path: whether the path is ignored, whether the
+ * array at that path is compared regardless of the order of its elements, the {@link ElementKey}
+ * used to match the elements of the array at that path, and the {@link PrunePredicate}s used to
+ * prune the array element at that path.
+ */
+final class PathTrie {
+
+  /** The path segment used to represent a wildcard array index. */
+  static final Object ANY_INDEX = new Object();
+
+  private static final PathTrie EMPTY = new PathTrie(null);
+
+  private final Node root;
+
+  private PathTrie(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Compiles the provided JSON path patterns to ignore and prune into a trie.
+   *
+   * @param ignoreFields The set of JSON node paths to ignore, may be null
+   * @param pruneFields The predicate map of JSON node paths to expected values that need to be
+   *     pruned, may be null
+   * @return The compiled trie
+   */
+  static PathTrie compile(Set<String> ignoreFields, Map<String, String> pruneFields) {
+    return compile(ignoreFields, pruneFields, null);
+  }
+
+  /**
+   * Compiles the provided JSON path patterns to ignore, prune and compare regardless of element
+   * order into a trie.
+   *
+   * @param ignoreFields The set of JSON node paths to ignore, may be null
+   * @param pruneFields The predicate map of JSON node paths to expected values that need to be
+   *     pruned, may be null
+   * @param unorderedArrays The set of JSON array paths whose elements may be in any order, may be
+   *     null
+   * @return The compiled trie
+   */
+  static PathTrie compile(
+      Set<String> ignoreFields, Map<String, String> pruneFields, Set<String> unorderedArrays) {
+    return compile(ignoreFields, pruneFields, unorderedArrays, null);
+  }
+
+  /**
+   * Compiles the provided JSON path patterns to ignore, prune, compare regardless of element order
+   * and match by key into a trie.
+   *
+   * @param ignoreFields The set of JSON node paths to ignore, may be null
+   * @param pruneFields The predicate map of JSON node paths to expected values that need to be
+   *     pruned, may be null
+   * @param unorderedArrays The set of JSON array paths whose elements may be in any order, may be
+   *     null
+   * @param arrayKeys The set of JSON array element paths and the key fields of those elements, in
+   *     the format "arrayElementPath:fieldPath", may be null
+   * @return The compiled trie
+   */
+  static PathTrie compile(
+      Set<String> ignoreFields,
+      Map<String, String> pruneFields,
+      Set<String> unorderedArrays,
+      Set<String> arrayKeys) {
+    boolean hasIgnoreFields = ignoreFields != null && !ignoreFields.isEmpty();
+    boolean hasPruneFields = pruneFields != null && !pruneFields.isEmpty();
+    boolean hasUnorderedArrays = unorderedArrays != null && !unorderedArrays.isEmpty();
+    boolean hasArrayKeys = arrayKeys != null && !arrayKeys.isEmpty();
+    if (!hasIgnoreFields && !hasPruneFields && !hasUnorderedArrays && !hasArrayKeys) {
+      return EMPTY;
+    }
+    Builder builder = new Builder();
+    if (hasArrayKeys) {
+      for (String arrayKey : arrayKeys) {
+        // Format is "arrayElementPath:fieldPath", where the element path ends with a wildcard
+        String[] fields = arrayKey.split(PREDICATE_SEPARATOR);
+        if (fields.length != 2) {
+          continue;
+        }
+        List<Object> segments = parse(fields[0]);
+        if (segments != null
+            && !segments.isEmpty()
+            && segments.get(segments.size() - 1) == ANY_INDEX) {
+          Builder.Entry array = builder.insert(segments.subList(0, segments.size() - 1));
+          if (array.elementKey == null) {
+            array.elementKey = ElementKey.of(fields[1]);
+          }
+        }
+      }
+    }
+    if (hasUnorderedArrays) {
+      for (String unorderedArray : unorderedArrays) {
+        List<Object> segments = parse(unorderedArray);
+        if (segments != null) {
+          builder.insert(segments).unordered = true;
+        }
+      }
+    }
+    if (hasIgnoreFields) {
+      for (String ignoreField : ignoreFields) {
+        List<Object> segments = parse(ignoreField);
+        if (segments != null) {
+          builder.insert(segments).ignored = true;
+        }
+      }
+    }
+    if (hasPruneFields) {
+      for (Map.Entry<String, String> pruneField : pruneFields.entrySet()) {
+        // Format is "arrayElementPath:fieldPath" -> "expectedValue"
+        String[] fields = pruneField.getKey().split(PREDICATE_SEPARATOR);
+        if (fields.length != 2) {
+          continue;
+        }
+        List<Object> segments = parse(fields[0]);
+        if (segments != null) {
+          builder
+              .insert(segments)
+              .predicates
+              .add(PrunePredicate.of(fields[1], pruneField.getValue()));
+        }
+      }
+    }
+    return new PathTrie(determinize(builder.root, new HashMap<>()));
+  }
+
+  /**
+   * Gets the node matching the root element '$'.
+   *
+   * @return The root node, or null if no patterns were compiled
+   */
+  Node root() {
+    return root;
+  }
+
+  /**
+   * Checks whether this trie holds no patterns at all.
+   *
+   * @return true if no patterns were compiled, false otherwise
+   */
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Finds the node matching a concrete JSON node path such as {@code $.data[3].id}.
+   *
+   * @param path The JSON node path to look up
+   * @return The node matching the path, or null if no pattern can match the path
+   */
+  Node find(String path) {
+    List<Object> segments = parse(path);
+    if (segments == null) {
+      return null;
+    }
+    Node node = root;
+    for (Object segment : segments) {
+      if (node == null) {
+        return null;
+      }
+      if (segment == ANY_INDEX) {
+        // Concrete paths cannot contain wildcards
+        return null;
+      } else if (segment instanceof Integer) {
+        node = node.element((Integer) segment);
+      } else {
+        node = node.child((String) segment);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Splits a dot-notated path into its segments: a String for each child key, an Integer for each
+   * array index and {@link #ANY_INDEX} for each wildcard array index. The leading root element is
+   * not included.
+   *
+   * @param path The path to parse
+   * @return The list of path segments, or null if the path is not well-formed
+   */
+  static List<Object> parse(String path) {
+    if (path == null || !path.startsWith(ROOT_NAME)) {
+      return null;
+    }
+    List<Object> segments = new ArrayList<>();
+    int i = ROOT_NAME.length();
+    while (i < path.length()) {
+      if (path.startsWith(NODE_SEPARATOR, i)) {
+        int start = i + NODE_SEPARATOR.length();
+        int end = start;
+        while (end < path.length()
+            && !path.startsWith(NODE_SEPARATOR, end)
+            && !path.startsWith(BEGIN_BRACKET, end)) {
+          end++;
+        }
+        segments.add(path.substring(start, end));
+        i = end;
+      } else if (path.startsWith(BEGIN_BRACKET, i)) {
+        int start = i + BEGIN_BRACKET.length();
+        int end = path.indexOf(END_BRACKET, start);
+        if (end < 0) {
+          return null;
+        }
+        String index = path.substring(start, end);
+        if (index.equals(WILDCARD)) {
+          segments.add(ANY_INDEX);
+        } else {
+          try {
+            segments.add(Integer.parseInt(index));
+          } catch (NumberFormatException e) {
+            return null;
+          }
+        }
+        i = end + END_BRACKET.length();
+      } else {
+        return null;
+      }
+    }
+    return segments;
+  }
+
+  private static Node determinize(List<Builder.Entry> group, Map<List<Builder.Entry>, Node> cache) {
+    Node cached = cache.get(group);
+    if (cached != null) {
+      return cached;
+    }
+    Node node = new Node();
+    cache.put(group, node);
+
+    Map<String, List<Builder.Entry>> children = new LinkedHashMap<>();
+    TreeMap<Integer, List<Builder.Entry>> elements = new TreeMap<>();
+    List<Builder.Entry> anyElement = new ArrayList<>();
+    List<PrunePredicate> predicates = new ArrayList<>();
+    for (Builder.Entry entry : group) {
+      node.ignored |= entry.ignored;
+      node.unordered |= entry.unordered;
+      if (node.elementKey == null) {
+        node.elementKey = entry.elementKey;
+      }
+      predicates.addAll(entry.predicates);
+      for (Map.Entry<String, Builder.Entry> child : entry.children.entrySet()) {
+        children.computeIfAbsent(child.getKey(), k -> new ArrayList<>()).add(child.getValue());
+      }
+      for (Integer index : entry.elements.keySet()) {
+        elements.put(index, new ArrayList<>());
+      }
+      if (entry.anyElement != null) {
+        anyElement.add(entry.anyElement);
+      }
+    }
+    // An explicit index is matched by its own patterns as well as by every wildcard pattern
+    for (Map.Entry<Integer, List<Builder.Entry>> element : elements.entrySet()) {
+      for (Builder.Entry entry : group) {
+        Builder.Entry explicit = entry.elements.get(element.getKey());
+        if (explicit != null) {
+          element.getValue().add(explicit);
+        }
+      }
+      element.getValue().addAll(anyElement);
+    }
+
+    if (!children.isEmpty()) {
+      node.children = new HashMap<>();
+      for (Map.Entry<String, List<Builder.Entry>> child : children.entrySet()) {
+        node.children.put(child.getKey(), determinize(child.getValue(), cache));
+      }
+    }
+    if (!elements.isEmpty()) {
+      node.indices = new int[elements.size()];
+      node.elements = new Node[elements.size()];
+      int i = 0;
+      for (Map.Entry<Integer, List<Builder.Entry>> element : elements.entrySet()) {
+        node.indices[i] = element.getKey();
+        node.elements[i] = determinize(element.getValue(), cache);
+        i++;
+      }
+    }
+    if (!anyElement.isEmpty()) {
+      node.anyElement = determinize(anyElement, cache);
+    }
+    if (!predicates.isEmpty()) {
+      node.predicates = predicates.toArray(new PrunePredicate[predicates.size()]);
+    }
+    node.prunesElements = node.anyElement != null && node.anyElement.predicates.length > 0;
+    for (int i = 0; i < node.indices.length && !node.prunesElements; i++) {
+      node.prunesElements = node.elements[i].predicates.length > 0;
+    }
+    return node;
+  }
+
+  private static Node determinize(Builder.Entry root, Map<List<Builder.Entry>, Node> cache) {
+    List<Builder.Entry> group = new ArrayList<>();
+    group.add(root);
+    return determinize(group, cache);
+  }
+
+  /** A single state of the compiled trie, representing every pattern matching a JSON node path. */
+  static final class Node {
+
+    private static final int[] NO_INDICES = new int[0];
+    private static final PrunePredicate[] NO_PREDICATES = new PrunePredicate[0];
+
+    private Map<String, Node> children = null;
+    private int[] indices = NO_INDICES;
+    private Node[] elements = null;
+    private Node anyElement = null;
+    private boolean ignored = false;
+    private boolean unordered = false;
+    private ElementKey elementKey = null;
+    private PrunePredicate[] predicates = NO_PREDICATES;
+    private boolean prunesElements = false;
+
+    private Node() {}
+
+    /**
+     * Advances to the child JSON field with the specified name.
+     *
+     * @param name The name of the child field
+     * @return The node matching the child field, or null if no pattern can match it
+     */
+    Node child(String name) {
+      return children == null ? null : children.get(name);
+    }
+
+    /**
+     * Advances to the JSON array element with the specified index.
+     *
+     * @param index The index of the array element
+     * @return The node matching the array element, or null if no pattern can match it
+     */
+    Node element(int index) {
+      int i = indices.length == 0 ? -1 : Arrays.binarySearch(indices, index);
+      return i >= 0 ? elements[i] : anyElement;
+    }
+
+    /**
+     * Checks whether the JSON node path represented by this node should be ignored.
+     *
+     * @return true if the path matches one of the ignore patterns, false otherwise
+     */
+    boolean isIgnored() {
+      return ignored;
+    }
+
+    /**
+     * Checks whether the elements of the JSON array at this path are compared regardless of their
+     * order.
+     *
+     * @return true if the path matches one of the unordered array patterns, false otherwise
+     */
+    boolean isUnordered() {
+      return unordered;
+    }
+
+    /**
+     * Gets the key used to match the elements of the JSON array at this path to one another.
+     *
+     * @return The key of the array elements, or null if the elements are matched by index
+     */
+    ElementKey getElementKey() {
+      return elementKey;
+    }
+
+    /**
+     * Gets the predicates which cause the array element at this path to be pruned if any of them
+     * match.
+     *
+     * @return The prune predicates for this path, empty if there are none
+     */
+    PrunePredicate[] getPrunePredicates() {
+      return predicates;
+    }
+
+    /**
+     * Checks whether any element of the JSON array at this path may need to be pruned. Arrays for
+     * which this returns false can skip pruning entirely.
+     *
+     * @return true if any array element path below this node has prune predicates
+     */
+    boolean prunesElements() {
+      return prunesElements;
+    }
+  }
+
+  /** A mutable, non-deterministic trie used to collect patterns before compilation. */
+  private static final class Builder {
+
+    private final Entry root = new Entry();
+
+    private Entry insert(List<Object> segments) {
+      Entry entry = root;
+      for (Object segment : segments) {
+        if (segment instanceof Integer) {
+          entry = entry.elements.computeIfAbsent((Integer) segment, k -> new Entry());
+        } else if (segment == ANY_INDEX) {
+          if (entry.anyElement == null) {
+            entry.anyElement = new Entry();
+          }
+          entry = entry.anyElement;
+        } else {
+          entry = entry.children.computeIfAbsent((String) segment, k -> new Entry());
+        }
+      }
+      return entry;
+    }
+
+    private static final class Entry {
+      private final Map<String, Entry> children = new HashMap<>();
+      private final Map<Integer, Entry> elements = new HashMap<>();
+      private final List<PrunePredicate> predicates = new ArrayList<>();
+      private Entry anyElement = null;
+      private boolean ignored = false;
+      private boolean unordered = false;
+      private ElementKey elementKey = null;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.SEPARATOR_REGEX;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A compiled prune predicate, matching an array element (JSON object) whose field at a given path
+ * holds an expected value.
+ *
+ * <p>The field path is split once at compile time, and the expected value is parsed once into each
+ * of the typed forms it may be compared against, so that matching an element never needs to convert
+ * the element's value into a string.
+ */
+final class PrunePredicate {
+
+  private static final String NULL = "null";
+
+  private final String[] fieldPath;
+  private final String expected;
+  private final Boolean expectedBoolean;
+  private final Integer expectedInt;
+  private final Double expectedDouble;
+
+  private PrunePredicate(String[] fieldPath, String expected) {
+    this.fieldPath = fieldPath;
+    this.expected = expected;
+    this.expectedBoolean =
+        Boolean.toString(true).equals(expected)
+            ? Boolean.TRUE
+            : Boolean.toString(false).equals(expected) ? Boolean.FALSE : null;
+    this.expectedInt = parseInt(expected);
+    this.expectedDouble = parseDouble(expected);
+  }
+
+  /**
+   * Creates a new PrunePredicate.
+   *
+   * @param fieldPath The dot-notated path of the field to check, relative to the array element
+   * @param expected The expected value of the field, in string form
+   * @return A new PrunePredicate instance
+   */
+  static PrunePredicate of(String fieldPath, String expected) {
+    return new PrunePredicate(fieldPath.split(SEPARATOR_REGEX), expected);
+  }
+
+  /**
+   * Checks whether the provided array element, from any parser backend, matches this predicate and
+   * should be pruned.
+   *
+   * @param element The JSON object array element to check
+   * @return true if the field at the predicate's path holds the expected value, false otherwise
+   */
+  boolean matches(JsonObjectNode element) {
+    JsonObjectNode currentNode = element;
+    for (int i = 0; i < fieldPath.length - 1; i++) {
+      if (currentNode != null
+          && currentNode.has(fieldPath[i])
+          && currentNode.getType(fieldPath[i]) == LazyType.OBJECT) {
+        currentNode = currentNode.getObject(fieldPath[i]);
+      } else {
+        return false;
+      }
+    }
+    String fieldName = fieldPath[fieldPath.length - 1];
+    if (currentNode == null || !currentNode.has(fieldName)) {
+      return false;
+    }
+    switch (currentNode.getType(fieldName)) {
+      case STRING:
+        return expected.equals(currentNode.getString(fieldName));
+      case INTEGER:
+        return expectedInt != null && intMatches(currentNode, fieldName);
+      case BOOLEAN:
+        return expectedBoolean != null && expectedBoolean == currentNode.getBoolean(fieldName);
+      case FLOAT:
+        return expectedDouble != null && expectedDouble == currentNode.getDouble(fieldName);
+      default:
+        return NULL.equals(expected);
+    }
+  }
+
+  private boolean intMatches(JsonObjectNode node, String fieldName) {
+    try {
+      return expectedInt == node.getLong(fieldName);
+    } catch (NumberFormatException e) {
+      // Integers beyond 64 bits can never equal the expected int
+      return false;
+    }
+  }
+
+  // Only canonical forms are accepted, as values used to be matched by their string form
+
+  private static Integer parseInt(String value) {
+    try {
+      int parsed = Integer.parseInt(value);
+      return Integer.toString(parsed).equals(value) ? parsed : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Double parseDouble(String value) {
+    try {
+      double parsed = Double.parseDouble(value);
+      return Double.toString(parsed).equals(value) ? parsed : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+/** Enum which specifies how many success messages are kept in a {@link JsonCompareResult}. */
+public enum ReportingLevel {
+  /** Only counts successful comparisons, no success messages are kept. */
+  COUNTS,
+  /** Keeps up to a fixed number of success messages, counting the rest. */
+  SAMPLE,
+  /** Keeps a success message for every successful comparison. */
+  FULL
+}
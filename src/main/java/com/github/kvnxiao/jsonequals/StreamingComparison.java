@@ -0,0 +1,378 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import static com.github.kvnxiao.jsonequals.Constants.BEGIN_CURLY;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import me.doubledutch.lazyjson.LazyArray;
+import me.doubledutch.lazyjson.LazyObject;
+import me.doubledutch.lazyjson.LazyType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares two JSON documents read from streams in lockstep, token by token, collecting its results
+ * into a {@link Comparison}.
+ *
+ * <p>Nothing is buffered while both documents hold the same fields in the same order. Once the
+ * fields of two JSON objects diverge, the remaining fields of both objects are buffered and
+ * compared as trees, and JSON arrays which may need pruning are buffered whole, so memory use is
+ * bounded by the largest such object or array rather than by the size of the documents.
+ */
+final class StreamingComparison {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JsonComparator.class);
+
+  private final Comparison comparison;
+  private final PathStack path;
+  private final JsonTokenizer a;
+  private final JsonTokenizer b;
+  private final boolean debugMode;
+  private final NumericTolerance numbers;
+
+  /** The names of the fields compared so far in each enclosing JSON object. */
+  private final List<String> fieldNames = new ArrayList<>();
+
+  StreamingComparison(
+      Comparison comparison,
+      Reader source,
+      Reader comparate,
+      boolean debugMode,
+      NumericTolerance numbers) {
+    this.comparison = comparison;
+    this.path = comparison.path();
+    this.a = new JsonTokenizer(source);
+    this.b = new JsonTokenizer(comparate);
+    this.debugMode = debugMode;
+    this.numbers = numbers;
+  }
+
+  /**
+   * Compares both documents, starting from the root element.
+   *
+   * @param rules The rules for the root element
+   * @return false if both root elements are not of the same type, true otherwise
+   * @throws IOException if either document could not be read or is not well-formed
+   */
+  boolean compare(PathTrie.Node rules) throws IOException {
+    JsonScanner.Token tokenA = a.next();
+    JsonScanner.Token tokenB = b.next();
+    if (tokenA == JsonScanner.Token.BEGIN_OBJECT && tokenB == JsonScanner.Token.BEGIN_OBJECT) {
+      compareObject(rules);
+    } else if (tokenA == JsonScanner.Token.BEGIN_ARRAY && tokenB == JsonScanner.Token.BEGIN_ARRAY) {
+      compareArray(rules);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private void compareObject(PathTrie.Node rules) throws IOException {
+    if (comparison.countIgnored(rules)) {
+      a.skipValue(JsonScanner.Token.BEGIN_OBJECT);
+      b.skipValue(JsonScanner.Token.BEGIN_OBJECT);
+      return;
+    }
+    comparison.visitObject();
+
+    int fieldsMark = fieldNames.size();
+    long mark = comparison.mark();
+    while (true) {
+      JsonScanner.Token tokenA = a.next();
+      JsonScanner.Token tokenB = b.next();
+      if (tokenA == JsonScanner.Token.END_OBJECT && tokenB == JsonScanner.Token.END_OBJECT) {
+        break;
+      }
+      String fieldName = tokenA == JsonScanner.Token.FIELD_NAME ? a.text() : null;
+      if (comparison.shouldStop()) {
+        // Commits or rolls back the mark itself
+        skipRemainingFields(tokenA, tokenB, fieldsMark, mark);
+        fieldNames.subList(fieldsMark, fieldNames.size()).clear();
+        return;
+      } else if (fieldName != null
+          && tokenB == JsonScanner.Token.FIELD_NAME
+          && fieldName.equals(b.text())) {
+        fieldNames.add(fieldName);
+        path.push(fieldName);
+        compareField(rules == null ? null : rules.child(fieldName));
+        path.pop();
+      } else {
+        // Commits or rolls back the mark itself
+        compareRemainingFields(tokenA, tokenB, fieldsMark, mark, rules);
+        fieldNames.subList(fieldsMark, fieldNames.size()).clear();
+        return;
+      }
+    }
+    comparison.commit();
+    fieldNames.subList(fieldsMark, fieldNames.size()).clear();
+  }
+
+  /**
+   * Buffers and compares the remaining fields of two JSON objects whose fields have diverged. If
+   * the objects turn out not to have the same child key names, and key diffs are not enabled, the
+   * results collected for the fields already compared are discarded, as a tree comparison would not
+   * have compared them.
+   */
+  private void compareRemainingFields(
+      JsonScanner.Token tokenA,
+      JsonScanner.Token tokenB,
+      int fieldsMark,
+      long mark,
+      PathTrie.Node rules)
+      throws IOException {
+    JsonObjectNode restA = readRemainingFields(a, tokenA);
+    JsonObjectNode restB = readRemainingFields(b, tokenB);
+    if (comparison.diffsKeys()) {
+      // Fields already compared are common to both objects, so only the rest need merging
+      comparison.compareMembers(restA, restB, rules, null, null);
+      comparison.commit();
+      return;
+    }
+    Set<String> fieldsA = restA.keySet();
+    Set<String> fieldsB = restB.keySet();
+    if (fieldsA.equals(fieldsB)) {
+      for (String fieldName : fieldsA) {
+        if (comparison.shouldStop()) {
+          break;
+        }
+        comparison.compareField(restA, restB, fieldName, rules, null, null);
+      }
+      comparison.commit();
+    } else {
+      comparison.rollback(mark);
+      List<String> compared = fieldNames.subList(fieldsMark, fieldNames.size());
+      comparison.logInequality(
+          Difference.Kind.KEYS_MISMATCH,
+          allFieldNames(compared, restA),
+          allFieldNames(compared, restB));
+    }
+  }
+
+  /**
+   * Skips the remaining fields of two JSON objects once the comparison has stopped, only reading
+   * their names, so that objects without the same child key names are still reported as a whole as
+   * a tree comparison would report them.
+   */
+  private void skipRemainingFields(
+      JsonScanner.Token tokenA, JsonScanner.Token tokenB, int fieldsMark, long mark)
+      throws IOException {
+    List<String> compared = fieldNames.subList(fieldsMark, fieldNames.size());
+    Set<String> fieldsA = skipRemainingFields(a, tokenA, new LinkedHashSet<>(compared));
+    Set<String> fieldsB = skipRemainingFields(b, tokenB, new LinkedHashSet<>(compared));
+    if (comparison.diffsKeys() || fieldsA.equals(fieldsB)) {
+      comparison.commit();
+    } else {
+      comparison.rollback(mark);
+      comparison.logInequality(Difference.Kind.KEYS_MISMATCH, fieldsA, fieldsB);
+    }
+  }
+
+  private static Set<String> skipRemainingFields(
+      JsonTokenizer tokenizer, JsonScanner.Token token, Set<String> fieldNames) throws IOException {
+    for (; token == JsonScanner.Token.FIELD_NAME; token = tokenizer.next()) {
+      fieldNames.add(tokenizer.text());
+      tokenizer.skipValue(tokenizer.next());
+    }
+    return fieldNames;
+  }
+
+  private static JsonObjectNode readRemainingFields(
+      JsonTokenizer tokenizer, JsonScanner.Token token) throws IOException {
+    StringBuilder prefix = new StringBuilder(BEGIN_CURLY);
+    if (token == JsonScanner.Token.FIELD_NAME) {
+      JsonTokenizer.appendQuoted(prefix, tokenizer.text()).append(':');
+      return LazyJsonNodes.of(new LazyObject(tokenizer.readRest(prefix)));
+    }
+    return LazyJsonNodes.of(new LazyObject(prefix.append('}').toString()));
+  }
+
+  private static Set<String> allFieldNames(List<String> compared, JsonObjectNode rest) {
+    Set<String> fieldNames = new LinkedHashSet<>(compared);
+    for (Iterator<String> keys = rest.keys(); keys.hasNext(); ) {
+      fieldNames.add(keys.next());
+    }
+    return fieldNames;
+  }
+
+  private void compareField(PathTrie.Node rules) throws IOException {
+    JsonScanner.Token tokenA = a.next();
+    JsonScanner.Token tokenB = b.next();
+    if (comparison.countIgnored(rules)) {
+      a.skipValue(tokenA);
+      b.skipValue(tokenB);
+    } else if (tokenA == JsonScanner.Token.BEGIN_OBJECT
+        && tokenB == JsonScanner.Token.BEGIN_OBJECT) {
+      compareObject(rules);
+    } else if (tokenA == JsonScanner.Token.BEGIN_ARRAY && tokenB == JsonScanner.Token.BEGIN_ARRAY) {
+      compareArray(rules);
+    } else {
+      if (debugMode) {
+        LOGGER.debug("Checking leaf object: {}", path);
+      }
+      comparison.visitLeaf();
+      LazyType typeA = typeOf(a, tokenA);
+      LazyType typeB = typeOf(b, tokenB);
+      a.skipValue(tokenA);
+      b.skipValue(tokenB);
+      if (typeA != typeB || typeA == LazyType.OBJECT || typeA == LazyType.ARRAY) {
+        comparison.logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+      } else if (valuesEqual(typeA)) {
+        comparison.logSuccess(a.text());
+      } else {
+        comparison.logInequality(Difference.Kind.VALUE_MISMATCH, a.text(), b.text());
+      }
+    }
+  }
+
+  private boolean valuesEqual(LazyType type) {
+    String textA = a.text();
+    String textB = b.text();
+    if (textA.equals(textB)) {
+      return true;
+    }
+    return numbers.matches(numbers.valueOf(type, textA), numbers.valueOf(type, textB));
+  }
+
+  private void compareArray(PathTrie.Node rules) throws IOException {
+    if (comparison.countIgnored(rules)) {
+      a.skipValue(JsonScanner.Token.BEGIN_ARRAY);
+      b.skipValue(JsonScanner.Token.BEGIN_ARRAY);
+      return;
+    }
+    if (comparison.diffsArrays()
+        || (rules != null
+            && (rules.prunesElements() || rules.isUnordered() || rules.getElementKey() != null))) {
+      // Pruning may shift the elements of either array, and diffed, unordered or keyed elements
+      // may be matched to any element of the other array, so both are buffered and compared as
+      // trees
+      comparison.compareNode(
+          LazyJsonNodes.of(new LazyArray(a.readRest("["))),
+          LazyJsonNodes.of(new LazyArray(b.readRest("["))),
+          rules,
+          null,
+          null);
+      return;
+    }
+    comparison.visitArray();
+
+    long mark = comparison.mark();
+    int[] countsA = new int[3];
+    int[] countsB = new int[3];
+    int index = 0;
+    while (true) {
+      JsonScanner.Token tokenA = a.next();
+      JsonScanner.Token tokenB = b.next();
+      if (tokenA == JsonScanner.Token.END_ARRAY) {
+        countRemainingElements(b, tokenB, countsB);
+        break;
+      } else if (tokenB == JsonScanner.Token.END_ARRAY) {
+        countRemainingElements(a, tokenA, countsA);
+        break;
+      }
+      countsA[childType(tokenA).ordinal()]++;
+      countsB[childType(tokenB).ordinal()]++;
+      if (comparison.shouldStop()) {
+        // Once the comparison has stopped, elements are only counted for the length check below
+        a.skipValue(tokenA);
+        b.skipValue(tokenB);
+        continue;
+      }
+      path.push(index);
+      compareElement(tokenA, tokenB, rules == null ? null : rules.element(index));
+      path.pop();
+      index++;
+    }
+
+    int sizeA = countsA[0] + countsA[1] + countsA[2];
+    int sizeB = countsB[0] + countsB[1] + countsB[2];
+    if (sizeA > 0
+        && sizeB > 0
+        && (countsA[0] != countsB[0] || countsA[1] != countsB[1] || countsA[2] != countsB[2])) {
+      comparison.rollback(mark);
+      comparison.logInequality(Difference.Kind.LENGTH_MISMATCH, sizeA, sizeB);
+    } else {
+      comparison.commit();
+    }
+  }
+
+  private void countRemainingElements(
+      JsonTokenizer tokenizer, JsonScanner.Token token, int[] counts) throws IOException {
+    while (token != JsonScanner.Token.END_ARRAY) {
+      counts[childType(token).ordinal()]++;
+      tokenizer.skipValue(token);
+      token = tokenizer.next();
+    }
+  }
+
+  private void compareElement(
+      JsonScanner.Token tokenA, JsonScanner.Token tokenB, PathTrie.Node rules) throws IOException {
+    JsonChildren.Type typeA = childType(tokenA);
+    JsonChildren.Type typeB = childType(tokenB);
+    if (typeA == JsonChildren.Type.OBJECT && typeB == JsonChildren.Type.OBJECT) {
+      compareObject(rules);
+    } else if (typeA == JsonChildren.Type.ARRAY && typeB == JsonChildren.Type.ARRAY) {
+      compareArray(rules);
+    } else if (typeA == JsonChildren.Type.VALUE && typeB == JsonChildren.Type.VALUE) {
+      if (debugMode) {
+        LOGGER.debug("Checking array value: {}", path);
+      }
+      comparison.visitLeaf();
+      Object valueA = numbers.valueOf(a.valueType(), a.text());
+      Object valueB = numbers.valueOf(b.valueType(), b.text());
+      if (numbers.matches(valueA, valueB)) {
+        comparison.logSuccess(valueA);
+      } else {
+        comparison.logInequality(Difference.Kind.VALUE_MISMATCH, valueA, valueB);
+      }
+    } else {
+      a.skipValue(tokenA);
+      b.skipValue(tokenB);
+      comparison.visitLeaf();
+      comparison.logInequality(Difference.Kind.TYPE_MISMATCH, typeA, typeB);
+    }
+  }
+
+  private static LazyType typeOf(JsonTokenizer tokenizer, JsonScanner.Token token) {
+    switch (token) {
+      case BEGIN_OBJECT:
+        return LazyType.OBJECT;
+      case BEGIN_ARRAY:
+        return LazyType.ARRAY;
+      default:
+        return tokenizer.valueType();
+    }
+  }
+
+  private static JsonChildren.Type childType(JsonScanner.Token token) {
+    switch (token) {
+      case BEGIN_OBJECT:
+        return JsonChildren.Type.OBJECT;
+      case BEGIN_ARRAY:
+        return JsonChildren.Type.ARRAY;
+      default:
+        return JsonChildren.Type.VALUE;
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import me.doubledutch.lazyjson.LazyObject;
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A structural hash of a JSON object or array, along with the digests of its child objects and
+ * arrays, forming a Merkle tree over the JSON element. The hash of a JSON object does not depend on
+ * the order of its fields, while the hash of a JSON array depends on the order of its elements, so
+ * two subtrees with the same hash compare as equal, barring a hash collision.
+ *
+ * <p>Digests computed from the raw JSON text also record the span of each subtree within the text,
+ * so that two subtrees can be checked for being byte-identical without materializing them.
+ */
+final class SubtreeDigest {
+
+  private static final long OBJECT_SEED = 0x6a09e667f3bcc908L;
+  private static final long ARRAY_SEED = 0xbb67ae8584caa73bL;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+  private final long hash;
+  private final int leafCount;
+  private final Map<String, SubtreeDigest> fields;
+  private final SubtreeDigest[] elements;
+  private final String source;
+  private final int start;
+  private final int end;
+
+  private SubtreeDigest(
+      long hash,
+      int leafCount,
+      Map<String, SubtreeDigest> fields,
+      SubtreeDigest[] elements,
+      String source,
+      int start,
+      int end) {
+    this.hash = hash;
+    this.leafCount = leafCount;
+    this.fields = fields;
+    this.elements = elements;
+    this.source = source;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Computes the digests of the JSON object or array held by raw JSON text, and of every object and
+   * array below it, in a single scan of the text.
+   *
+   * @param raw The raw JSON text
+   * @return The digest of the root JSON element, or null if the text does not hold a well-formed
+   *     JSON object or array
+   */
+  static SubtreeDigest of(String raw) {
+    try {
+      Scanner scanner = new Scanner(raw);
+      JsonScanner.Token token = scanner.next();
+      return token == JsonScanner.Token.BEGIN_OBJECT || token == JsonScanner.Token.BEGIN_ARRAY
+          ? scanner.scanContainer(token)
+          : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Computes the digests of a JSON object and of every object and array below it.
+   *
+   * @param object The JSON object
+   * @return The digest of the JSON object
+   */
+  static SubtreeDigest of(JsonObjectNode object) {
+    Map<String, SubtreeDigest> fields = null;
+    long sum = 0;
+    int count = 0;
+    int leafCount = 0;
+    for (Iterator<String> keys = object.keys(); keys.hasNext(); ) {
+      String key = keys.next();
+      long valueHash;
+      LazyType type = object.getType(key);
+      if (type == LazyType.OBJECT || type == LazyType.ARRAY) {
+        SubtreeDigest child =
+            type == LazyType.OBJECT ? of(object.getObject(key)) : of(object.getArray(key));
+        if (fields == null) {
+          fields = new HashMap<>();
+        }
+        fields.put(key, child);
+        valueHash = child.hash;
+        leafCount += child.leafCount;
+      } else {
+        valueHash = hashValue(type, type == LazyType.NULL ? null : object.getString(key));
+        leafCount++;
+      }
+      // Summing the hash of each field keeps the object hash independent of the field order
+      sum += mix(hashString(key) * MULTIPLIER + valueHash);
+      count++;
+    }
+    return new SubtreeDigest(mix(OBJECT_SEED + sum + count), leafCount, fields, null, null, -1, -1);
+  }
+
+  /**
+   * Computes the digests of a JSON array and of every object and array below it.
+   *
+   * @param array The JSON array
+   * @return The digest of the JSON array
+   */
+  static SubtreeDigest of(JsonArrayNode array) {
+    int length = array.length();
+    SubtreeDigest[] elements = null;
+    long hash = ARRAY_SEED;
+    int leafCount = 0;
+    for (int i = 0; i < length; i++) {
+      long valueHash;
+      LazyType type = array.getType(i);
+      if (type == LazyType.OBJECT || type == LazyType.ARRAY) {
+        SubtreeDigest child =
+            type == LazyType.OBJECT ? of(array.getObject(i)) : of(array.getArray(i));
+        if (elements == null) {
+          elements = new SubtreeDigest[length];
+        }
+        elements[i] = child;
+        valueHash = child.hash;
+        leafCount += child.leafCount;
+      } else {
+        valueHash = hashValue(type, type == LazyType.NULL ? null : array.getString(i));
+        leafCount++;
+      }
+      hash = hash * MULTIPLIER + valueHash;
+    }
+    return new SubtreeDigest(mix(hash + length), leafCount, null, elements, null, -1, -1);
+  }
+
+  /**
+   * Gets the structural hash of this subtree.
+   *
+   * @return The hash
+   */
+  long hash() {
+    return hash;
+  }
+
+  /**
+   * Gets the number of leaf values in this subtree: every primitive field of a JSON object and
+   * every primitive element of a JSON array, which is the number of successful comparisons made
+   * when comparing two equal subtrees.
+   *
+   * @return The number of leaf values
+   */
+  int leafCount() {
+    return leafCount;
+  }
+
+  /**
+   * Gets the digest of the child object or array with the specified field name.
+   *
+   * @param fieldName The name of the child field
+   * @return The digest of the child, or null if the child is not an object or array
+   */
+  SubtreeDigest field(String fieldName) {
+    return fields == null ? null : fields.get(fieldName);
+  }
+
+  /**
+   * Gets the digest of the child object or array at the specified index.
+   *
+   * @param index The index of the child element
+   * @return The digest of the child, or null if the child is not an object or array
+   */
+  SubtreeDigest element(int index) {
+    return elements == null || index >= elements.length ? null : elements[index];
+  }
+
+  /**
+   * Checks whether two subtrees have the same structural hash.
+   *
+   * @param a The digest of the first subtree, may be null
+   * @param b The digest of the second subtree, may be null
+   * @return true if both digests are present and have the same hash, false otherwise
+   */
+  static boolean matches(SubtreeDigest a, SubtreeDigest b) {
+    return a != null && b != null && a.hash == b.hash;
+  }
+
+  /**
+   * Checks whether two subtrees have byte-identical raw JSON text.
+   *
+   * @param a The digest of the first subtree, may be null
+   * @param b The digest of the second subtree, may be null
+   * @return true if both digests were computed from raw JSON text holding the same characters,
+   *     false otherwise
+   */
+  static boolean sameSpan(SubtreeDigest a, SubtreeDigest b) {
+    if (a == null || b == null || a.source == null || b.source == null) {
+      return false;
+    }
+    int length = a.end - a.start;
+    return length == b.end - b.start
+        && a.hash == b.hash
+        && a.source.regionMatches(a.start, b.source, b.start, length);
+  }
+
+  // Values are hashed by their raw text, which is stricter than any of the value comparisons
+
+  private static long hashValue(LazyType type, String text) {
+    return mix(hashString(text) + type.ordinal());
+  }
+
+  static long hashString(String value) {
+    return value == null ? 0 : hashString(value, 0, value.length());
+  }
+
+  private static long hashString(String value, int from, int to) {
+    long hash = FNV_OFFSET;
+    for (int i = from; i < to; i++) {
+      hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /** The finalizer of the SplitMix64 generator, spreading every input bit across the result. */
+  static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+  /**
+   * A scanner computing digests directly from raw JSON text, hashing each value by its raw
+   * characters without materializing it.
+   */
+  private static final class Scanner extends JsonScanner {
+
+    private final String raw;
+    private int position = 0;
+    private int tokenStart = 0;
+    private int start = 0;
+    private int end = 0;
+    private boolean escaped = false;
+
+    private Scanner(String raw) {
+      this.raw = raw;
+    }
+
+    /** Scans the JSON object or array starting with the token just read. */
+    private SubtreeDigest scanContainer(Token token) throws IOException {
+      int from = tokenStart;
+      if (token == Token.BEGIN_OBJECT) {
+        Map<String, SubtreeDigest> fields = null;
+        long sum = 0;
+        int count = 0;
+        int leafCount = 0;
+        while (next() == Token.FIELD_NAME) {
+          String key = raw.substring(start, end);
+          if (escaped) {
+            // Escaped keys are rare, and are decoded by LazyJSON to match the keys it returns
+            key = new LazyObject("{" + raw.substring(start - 1, end + 1) + ":0}").keys().next();
+          }
+          long valueHash;
+          Token value = next();
+          if (value == Token.BEGIN_OBJECT || value == Token.BEGIN_ARRAY) {
+            SubtreeDigest child = scanContainer(value);
+            if (fields == null) {
+              fields = new HashMap<>();
+            }
+            fields.put(key, child);
+            valueHash = child.hash;
+            leafCount += child.leafCount;
+          } else {
+            valueHash = hashValue();
+            leafCount++;
+          }
+          sum += mix(hashString(key) * MULTIPLIER + valueHash);
+          count++;
+        }
+        return new SubtreeDigest(
+            mix(OBJECT_SEED + sum + count), leafCount, fields, null, raw, from, position);
+      }
+
+      SubtreeDigest[] elements = null;
+      long hash = ARRAY_SEED;
+      int length = 0;
+      int leafCount = 0;
+      for (Token value = next(); value != Token.END_ARRAY; value = next()) {
+        long valueHash;
+        if (value == Token.BEGIN_OBJECT || value == Token.BEGIN_ARRAY) {
+          SubtreeDigest child = scanContainer(value);
+          if (elements == null) {
+            elements = new SubtreeDigest[8];
+          } else if (length == elements.length) {
+            elements = Arrays.copyOf(elements, length * 2);
+          }
+          elements[length] = child;
+          valueHash = child.hash;
+          leafCount += child.leafCount;
+        } else {
+          valueHash = hashValue();
+          leafCount++;
+        }
+        hash = hash * MULTIPLIER + valueHash;
+        length++;
+      }
+      return new SubtreeDigest(mix(hash + length), leafCount, null, elements, raw, from, position);
+    }
+
+    /** Hashes the primitive value just read by its raw text. */
+    private long hashValue() {
+      LazyType type = valueType();
+      return type == LazyType.NULL
+          ? SubtreeDigest.hashValue(type, null)
+          : mix(hashString(raw, start, end) + type.ordinal());
+    }
+
+    @Override
+    int peek() {
+      return position < raw.length() ? raw.charAt(position) : -1;
+    }
+
+    @Override
+    void advance() {
+      position++;
+    }
+
+    @Override
+    long offset() {
+      return position;
+    }
+
+    @Override
+    void startToken() {
+      tokenStart = position;
+    }
+
+    @Override
+    void startText() {
+      start = position;
+      escaped = false;
+    }
+
+    @Override
+    void endText() {
+      end = position;
+    }
+
+    @Override
+    void appendEscape(char c) {
+      escaped = true;
+    }
+  }
+}
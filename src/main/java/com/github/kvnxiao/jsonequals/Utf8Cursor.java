@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pull scanner reading a JSON document from a buffer of UTF-8 bytes one token at a time, like
+ * {@link JsonTokenizer} but without decoding anything. Field names and values are exposed as spans
+ * of the buffer, which can be compared byte for byte against the spans of another cursor, and are
+ * only decoded into strings when asked for.
+ */
+final class Utf8Cursor extends JsonScanner implements PathStack.KeySource {
+
+  private final ByteBuffer bytes;
+  private final int limit;
+  private int position;
+
+  private int tokenStart = 0;
+  private int start = 0;
+  private int end = 0;
+  private boolean escaped = false;
+
+  Utf8Cursor(ByteBuffer bytes) {
+    this.bytes = bytes;
+    this.position = bytes.position();
+    this.limit = bytes.limit();
+  }
+
+  /**
+   * Gets the offset of the first byte of the last token read, such as the opening quote of a field
+   * name or the opening bracket of a JSON array.
+   *
+   * @return The offset of the last token
+   */
+  int tokenStart() {
+    return tokenStart;
+  }
+
+  /**
+   * Gets the offset of the first byte of the text of the last {@link JsonScanner.Token#FIELD_NAME}
+   * or {@link JsonScanner.Token#VALUE} read, past the opening quote of a string.
+   *
+   * @return The start of the text
+   */
+  int textStart() {
+    return start;
+  }
+
+  /**
+   * Gets the offset just past the last byte of the text of the last {@link
+   * JsonScanner.Token#FIELD_NAME} or {@link JsonScanner.Token#VALUE} read, before the closing quote
+   * of a string.
+   *
+   * @return The end of the text
+   */
+  int textEnd() {
+    return end;
+  }
+
+  /**
+   * Gets the offset just past the last byte read.
+   *
+   * @return The current offset
+   */
+  int position() {
+    return position;
+  }
+
+  /**
+   * Checks whether the last {@link JsonScanner.Token#FIELD_NAME} or {@link JsonScanner.Token#VALUE}
+   * read is the same as the last one read by another cursor, comparing the text of both byte for
+   * byte. Strings which are not spelled alike but hold escape sequences are decoded and compared as
+   * strings.
+   *
+   * @param other The other cursor
+   * @return true if both tokens hold the same text, false otherwise
+   */
+  boolean textEquals(Utf8Cursor other) {
+    int length = end - start;
+    if (length == other.end - other.start) {
+      int i = 0;
+      while (i < length && bytes.get(start + i) == other.bytes.get(other.start + i)) {
+        i++;
+      }
+      if (i == length) {
+        return true;
+      }
+    }
+    return (escaped || other.escaped) && text().equals(other.text());
+  }
+
+  /**
+   * Decodes the text of the last {@link JsonScanner.Token#FIELD_NAME} or {@link
+   * JsonScanner.Token#VALUE} read: the decoded characters of a string, or the literal of any other
+   * value.
+   *
+   * @return The text of the token
+   */
+  String text() {
+    return escaped ? unescape(decode(start, end)) : decode(start, end);
+  }
+
+  /**
+   * Decodes a child key name from the span between the quotes of a field name read by this cursor.
+   *
+   * @param start The start of the span, inclusive
+   * @param end The end of the span, exclusive
+   * @return The child key name
+   */
+  @Override
+  public String key(int start, int end) {
+    String key = decode(start, end);
+    return key.indexOf('\\') < 0 ? key : unescape(key);
+  }
+
+  /**
+   * Decodes the raw text of the specified span.
+   *
+   * @param from The start of the span, inclusive
+   * @param to The end of the span, exclusive
+   * @return The raw text of the span
+   */
+  String decode(int from, int to) {
+    if (bytes.hasArray()) {
+      return new String(
+          bytes.array(), bytes.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+    }
+    ByteBuffer span = bytes.duplicate();
+    span.limit(to);
+    span.position(from);
+    return StandardCharsets.UTF_8.decode(span).toString();
+  }
+
+  @Override
+  int peek() {
+    return position < limit ? bytes.get(position) & 0xff : -1;
+  }
+
+  @Override
+  void advance() {
+    position++;
+  }
+
+  @Override
+  long offset() {
+    return position;
+  }
+
+  @Override
+  void startToken() {
+    tokenStart = position;
+  }
+
+  @Override
+  void startText() {
+    start = position;
+    escaped = false;
+  }
+
+  @Override
+  void endText() {
+    end = position;
+  }
+
+  @Override
+  void appendEscape(char c) {
+    escaped = true;
+  }
+
+  /** Replaces the escape sequences of a string, which are known to be well-formed. */
+  private static String unescape(String raw) {
+    StringBuilder text = new StringBuilder(raw.length());
+    for (int i = 0; i < raw.length(); i++) {
+      char c = raw.charAt(i);
+      if (c != '\\') {
+        text.append(c);
+      } else if (raw.charAt(++i) == 'u') {
+        text.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+        i += 4;
+      } else {
+        text.append((char) unescape(raw.charAt(i)));
+      }
+    }
+    return text.toString();
+  }
+}
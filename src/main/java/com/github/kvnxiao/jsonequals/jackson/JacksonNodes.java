@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.jackson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kvnxiao.jsonequals.JsonArrayNode;
+import com.github.kvnxiao.jsonequals.JsonBackend;
+import com.github.kvnxiao.jsonequals.JsonObjectNode;
+import com.github.kvnxiao.jsonequals.JsonRoot;
+
+import me.doubledutch.lazyjson.LazyType;
+
+/**
+ * A parser backend comparing Jackson trees directly, viewing each Jackson {@link JsonNode} as a
+ * {@link JsonObjectNode} or {@link JsonArrayNode}. Jackson is an optional dependency, which must be
+ * on the classpath to use this class.
+ *
+ * <p>Jackson keeps numbers as parsed values rather than as their literal text, so the text of a
+ * number in an inequality message is Jackson's rendering of it, such as 1.5 for a literal of 1.50.
+ */
+public final class JacksonNodes {
+
+  private static final JsonBackend BACKEND = backend(new ObjectMapper());
+
+  private JacksonNodes() {}
+
+  /**
+   * Creates a JsonRoot from a Jackson tree, which is compared as it is without being converted.
+   *
+   * @param tree The root of the Jackson tree, a JSON object or array
+   * @return A new JsonRoot instance
+   * @throws IllegalArgumentException if the tree is neither a JSON object nor a JSON array
+   */
+  public static JsonRoot from(JsonNode tree) {
+    if (tree != null && tree.isObject()) {
+      return JsonRoot.from(new JacksonObject(tree));
+    } else if (tree != null && tree.isArray()) {
+      return JsonRoot.from(new JacksonArray(tree));
+    }
+    throw new IllegalArgumentException("The root of a Jackson tree must be an object or array");
+  }
+
+  /**
+   * Gets the Jackson backend using a default {@link ObjectMapper}.
+   *
+   * @return The Jackson backend
+   */
+  public static JsonBackend backend() {
+    return BACKEND;
+  }
+
+  /**
+   * Gets a Jackson backend parsing JSON text with the provided mapper.
+   *
+   * @param mapper The mapper to read JSON trees with
+   * @return The Jackson backend
+   */
+  public static JsonBackend backend(ObjectMapper mapper) {
+    return raw -> {
+      try {
+        return from(mapper.readTree(raw));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  private static LazyType typeOf(JsonNode node) {
+    switch (node.getNodeType()) {
+      case OBJECT:
+        return LazyType.OBJECT;
+      case ARRAY:
+        return LazyType.ARRAY;
+      case NUMBER:
+        return node.isIntegralNumber() ? LazyType.INTEGER : LazyType.FLOAT;
+      case BOOLEAN:
+        return LazyType.BOOLEAN;
+      case NULL:
+      case MISSING:
+        return LazyType.NULL;
+      default:
+        return LazyType.STRING;
+    }
+  }
+
+  private static String textOf(JsonNode node) {
+    return node.isNull() ? null : node.asText();
+  }
+
+  private static long longOf(JsonNode node) {
+    if (!node.canConvertToLong()) {
+      // Matches the text parsers, so that integers beyond 64 bits are compared as BigIntegers
+      throw new NumberFormatException(node.asText());
+    }
+    return node.longValue();
+  }
+
+  private static final class JacksonObject implements JsonObjectNode {
+
+    private final JsonNode node;
+
+    private JacksonObject(JsonNode node) {
+      this.node = node;
+    }
+
+    @Override
+    public int length() {
+      return node.size();
+    }
+
+    @Override
+    public Iterator<String> keys() {
+      return node.fieldNames();
+    }
+
+    @Override
+    public boolean has(String key) {
+      return node.has(key);
+    }
+
+    @Override
+    public LazyType getType(String key) {
+      return typeOf(node.get(key));
+    }
+
+    @Override
+    public JsonObjectNode getObject(String key) {
+      return new JacksonObject(node.get(key));
+    }
+
+    @Override
+    public JsonArrayNode getArray(String key) {
+      return new JacksonArray(node.get(key));
+    }
+
+    @Override
+    public String getString(String key) {
+      return textOf(node.get(key));
+    }
+
+    @Override
+    public long getLong(String key) {
+      return longOf(node.get(key));
+    }
+
+    @Override
+    public double getDouble(String key) {
+      return node.get(key).doubleValue();
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+      return node.get(key).booleanValue();
+    }
+
+    @Override
+    public String toString() {
+      return node.toString();
+    }
+  }
+
+  private static final class JacksonArray implements JsonArrayNode {
+
+    private final JsonNode node;
+
+    private JacksonArray(JsonNode node) {
+      this.node = node;
+    }
+
+    @Override
+    public int length() {
+      return node.size();
+    }
+
+    @Override
+    public LazyType getType(int index) {
+      return typeOf(node.get(index));
+    }
+
+    @Override
+    public JsonObjectNode getObject(int index) {
+      return new JacksonObject(node.get(index));
+    }
+
+    @Override
+    public JsonArrayNode getArray(int index) {
+      return new JacksonArray(node.get(index));
+    }
+
+    @Override
+    public String getString(int index) {
+      return textOf(node.get(index));
+    }
+
+    @Override
+    public long getLong(int index) {
+      return longOf(node.get(index));
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return node.get(index).doubleValue();
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+      return node.get(index).booleanValue();
+    }
+
+    @Override
+    public String toString() {
+      return node.toString();
+    }
+  }
+}
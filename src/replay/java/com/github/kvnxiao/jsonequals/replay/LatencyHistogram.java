@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.replay;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed relative precision. Values are grouped into
+ * buckets by their highest bits: every power of two is split into {@value #HALF_BUCKETS} linear
+ * sub-buckets, so a recorded value is off by less than 1/{@value #HALF_BUCKETS} of itself, while
+ * the whole histogram is a single array of a few thousand counters. Instances are not thread-safe;
+ * each thread records into its own histogram and the histograms are merged afterwards.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+
+  private final long[] counts =
+      new long[SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF_BUCKETS];
+  private long totalCount = 0;
+  private long maxValue = 0;
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency in nanoseconds, negative values are recorded as zero
+   */
+  void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    counts[indexOf(value)]++;
+    totalCount++;
+    maxValue = Math.max(maxValue, value);
+  }
+
+  /**
+   * Adds every latency recorded by another histogram to this one.
+   *
+   * @param other The histogram to add
+   */
+  void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    maxValue = Math.max(maxValue, other.maxValue);
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   *
+   * @return The number of latencies
+   */
+  long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Gets the largest latency recorded.
+   *
+   * @return The largest latency in nanoseconds, or 0 if none were recorded
+   */
+  long getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Gets the latency at the specified percentile, rounded up to the highest value of its bucket.
+   *
+   * @param percentile The percentile, between 0 and 100
+   * @return The latency in nanoseconds, or 0 if none were recorded
+   */
+  long getValueAtPercentile(double percentile) {
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long count = 0;
+    for (int i = 0; i < counts.length; i++) {
+      count += counts[i];
+      if (count >= target) {
+        return Math.min(highestValueOf(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return SUB_BUCKETS + (shift - 1) * HALF_BUCKETS + (top - HALF_BUCKETS);
+  }
+
+  private static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF_BUCKETS + 1;
+    long top = (index - SUB_BUCKETS) % HALF_BUCKETS + HALF_BUCKETS;
+    return (top << shift) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ *  Copyright 2017 Ze Hao (Kevin) Xiao
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.kvnxiao.jsonequals.replay;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.kvnxiao.jsonequals.JsonComparator;
+import com.github.kvnxiao.jsonequals.JsonCompareResult;
+import com.github.kvnxiao.jsonequals.JsonRoot;
+import com.github.kvnxiao.jsonequals.ReportingLevel;
+
+/**
+ * A load-test driver replaying a directory of captured JSON response pairs through a shared {@link
+ * JsonComparator}, either as fast as possible or at a target rate, across a number of threads. Each
+ * operation parses both responses and compares them, and the driver reports the latency
+ * percentiles, throughput and allocation rate of the measured operations.
+ *
+ * <p>Response pairs are files named {@code <name>_a.json} and {@code <name>_b.json}, as in the
+ * {@code tests} directory, and are replayed round-robin. When a target rate is given, the latency
+ * of each operation is measured from the time it was scheduled to start rather than from the time
+ * it actually started, so that a stall in the comparator is reflected in the latency of every
+ * operation queued behind it.
+ */
+public final class ReplayDriver {
+
+  private static final String USAGE =
+      "Usage: java -jar jsonequals-all.jar <directory> [options]\n"
+          + "  --threads N          number of replay threads (default: 1)\n"
+          + "  --rate OPS           target operations per second across all threads (default: max)\n"
+          + "  --duration SECONDS   length of the measured phase (default: 30)\n"
+          + "  --warmup SECONDS     length of the unmeasured warmup phase (default: 10)\n"
+          + "  --ignore PATH        JSON path to ignore, may be repeated\n"
+          + "  --prune PATH=VALUE   JSON path and expected value to prune, may be repeated\n"
+          + "  --reporting LEVEL    success reporting level, FULL, SAMPLE or COUNTS (default: FULL)";
+
+  private final List<String[]> pairs;
+  private final JsonComparator comparator;
+  private final int threads;
+  private final double rate;
+  private final long warmupNanos;
+  private final long durationNanos;
+
+  private ReplayDriver(
+      List<String[]> pairs,
+      JsonComparator comparator,
+      int threads,
+      double rate,
+      long warmupNanos,
+      long durationNanos) {
+    this.pairs = pairs;
+    this.comparator = comparator;
+    this.threads = threads;
+    this.rate = rate;
+    this.warmupNanos = warmupNanos;
+    this.durationNanos = durationNanos;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0 || args[0].startsWith("--")) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    Path directory = Paths.get(args[0]);
+    int threads = 1;
+    double rate = 0;
+    long duration = 30;
+    long warmup = 10;
+    Set<String> ignoreFields = new HashSet<>();
+    Map<String, String> pruneFields = new HashMap<>();
+    ReportingLevel reporting = ReportingLevel.FULL;
+    for (int i = 1; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException("Missing value for option " + args[i] + "\n" + USAGE);
+      }
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "--rate":
+          rate = Double.parseDouble(value);
+          break;
+        case "--duration":
+          duration = Long.parseLong(value);
+          break;
+        case "--warmup":
+          warmup = Long.parseLong(value);
+          break;
+        case "--ignore":
+          ignoreFields.add(value);
+          break;
+        case "--prune":
+          int separator = value.lastIndexOf('=');
+          if (separator < 0) {
+            throw new IllegalArgumentException("Prune option must be PATH=VALUE: " + value);
+          }
+          pruneFields.put(value.substring(0, separator), value.substring(separator + 1));
+          break;
+        case "--reporting":
+          reporting = ReportingLevel.valueOf(value.toUpperCase(Locale.ROOT));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i] + "\n" + USAGE);
+      }
+    }
+    if (threads < 1 || rate < 0 || duration < 1 || warmup < 0) {
+      throw new IllegalArgumentException("Invalid option values\n" + USAGE);
+    }
+
+    List<String[]> pairs = loadPairs(directory);
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withIgnoreFields(ignoreFields)
+            .withPruneFields(pruneFields)
+            .withSuccessReporting(reporting)
+            .build();
+    System.out.printf(
+        "Replaying %d response pairs from %s on %d thread(s) at %s%n",
+        pairs.size(), directory, threads, rate > 0 ? rate + " ops/s" : "max throughput");
+    new ReplayDriver(
+            pairs,
+            comparator,
+            threads,
+            rate,
+            TimeUnit.SECONDS.toNanos(warmup),
+            TimeUnit.SECONDS.toNanos(duration))
+        .run();
+  }
+
+  /**
+   * Loads every response pair in a directory, sorted by name.
+   *
+   * @param directory The directory holding {@code <name>_a.json} and {@code <name>_b.json} files
+   * @return The list of response pairs, each holding the raw JSON text of both responses
+   * @throws IOException If the directory or a response could not be read
+   */
+  private static List<String[]> loadPairs(Path directory) throws IOException {
+    Map<String, Path> sources = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*_a.json")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        sources.put(name.substring(0, name.length() - "_a.json".length()), file);
+      }
+    }
+    List<String[]> pairs = new ArrayList<>();
+    for (Map.Entry<String, Path> entry : sources.entrySet()) {
+      Path comparate = directory.resolve(entry.getKey() + "_b.json");
+      if (Files.isRegularFile(comparate)) {
+        pairs.add(new String[] {read(entry.getValue()), read(comparate)});
+      }
+    }
+    if (pairs.isEmpty()) {
+      throw new IllegalArgumentException("No response pairs found in " + directory);
+    }
+    return pairs;
+  }
+
+  private static String read(Path path) throws IOException {
+    return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+  }
+
+  private void run() throws InterruptedException {
+    AtomicLong sequence = new AtomicLong();
+    long start = System.nanoTime();
+    long measureStart = start + warmupNanos;
+    long end = measureStart + durationNanos;
+
+    Worker[] workers = new Worker[threads];
+    Thread[] running = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(sequence, start, measureStart, end);
+      running[i] = new Thread(workers[i], "replay-" + i);
+      running[i].start();
+    }
+    LatencyHistogram latencies = new LatencyHistogram();
+    long unequal = 0;
+    long allocatedBytes = 0;
+    boolean allocationSupported = true;
+    for (int i = 0; i < threads; i++) {
+      running[i].join();
+      latencies.add(workers[i].latencies);
+      unequal += workers[i].unequal;
+      allocatedBytes += workers[i].allocatedBytes;
+      allocationSupported &= workers[i].allocatedBytes >= 0;
+    }
+    report(latencies, unequal, allocationSupported ? allocatedBytes : -1);
+  }
+
+  private void report(LatencyHistogram latencies, long unequal, long allocatedBytes) {
+    long operations = latencies.getTotalCount();
+    double seconds = durationNanos / 1e9;
+    System.out.printf("Operations:   %d (%d unequal pairs)%n", operations, unequal);
+    System.out.printf("Throughput:   %.1f ops/s%n", operations / seconds);
+    System.out.printf(
+        "Latency (us): p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+        latencies.getValueAtPercentile(50) / 1e3,
+        latencies.getValueAtPercentile(99) / 1e3,
+        latencies.getValueAtPercentile(99.9) / 1e3,
+        latencies.getMaxValue() / 1e3);
+    if (allocatedBytes < 0) {
+      System.out.println("Allocation:   not supported by this JVM");
+    } else {
+      System.out.printf(
+          "Allocation:   %.1f MB/s, %d bytes/op%n",
+          allocatedBytes / seconds / (1 << 20), operations == 0 ? 0 : allocatedBytes / operations);
+    }
+  }
+
+  /** A replay thread, which records the latency and allocations of its own measured operations. */
+  private final class Worker implements Runnable {
+
+    private final AtomicLong sequence;
+    private final long start;
+    private final long measureStart;
+    private final long end;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private long unequal = 0;
+    private long allocatedBytes = -1;
+
+    private Worker(AtomicLong sequence, long start, long measureStart, long end) {
+      this.sequence = sequence;
+      this.start = start;
+      this.measureStart = measureStart;
+      this.end = end;
+    }
+
+    @Override
+    public void run() {
+      long intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+      boolean measuring = false;
+      long allocatedAtStart = 0;
+      while (true) {
+        long operation = sequence.getAndIncrement();
+        long now = System.nanoTime();
+        long scheduled = now;
+        if (intervalNanos > 0) {
+          // Operations are scheduled on a fixed timeline shared by every thread
+          scheduled = start + operation * intervalNanos;
+          while (now < scheduled) {
+            LockSupport.parkNanos(scheduled - now);
+            now = System.nanoTime();
+          }
+        }
+        if (scheduled >= end) {
+          break;
+        }
+        if (!measuring && scheduled >= measureStart) {
+          measuring = true;
+          allocatedAtStart = allocatedBytes();
+        }
+
+        String[] pair = pairs.get((int) (operation % pairs.size()));
+        JsonCompareResult result =
+            comparator.compare(JsonRoot.from(pair[0]), JsonRoot.from(pair[1]));
+        long latency = System.nanoTime() - scheduled;
+
+        if (measuring) {
+          latencies.record(latency);
+          if (!result.isEqual()) {
+            unequal++;
+          }
+        }
+      }
+      if (measuring && allocatedAtStart >= 0) {
+        allocatedBytes = allocatedBytes() - allocatedAtStart;
+      } else if (!measuring) {
+        allocatedBytes = 0;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of bytes allocated by the current thread so far.
+   *
+   * @return The number of bytes, or -1 if the JVM does not measure thread allocations
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+      if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+        return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
@@ -20,12 +20,35 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import com.github.kvnxiao.jsonequals.Difference;
+import com.github.kvnxiao.jsonequals.JsonBatch;
+import com.github.kvnxiao.jsonequals.JsonComparator;
 import com.github.kvnxiao.jsonequals.JsonCompareResult;
 import com.github.kvnxiao.jsonequals.JsonEquals;
+import com.github.kvnxiao.jsonequals.JsonPair;
 import com.github.kvnxiao.jsonequals.JsonRoot;
+import com.github.kvnxiao.jsonequals.NumericTolerance;
+import com.github.kvnxiao.jsonequals.ReportingLevel;
+import com.github.kvnxiao.jsonequals.jackson.JacksonNodes;
+
+import me.doubledutch.lazyjson.LazyObject;
+import me.doubledutch.lazyjson.LazyType;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -91,4 +114,771 @@ public class ComparisonTest {
 
     assertTrue(result.isEqual());
   }
+
+  @Test
+  public void maxInequalitiesTest() {
+    JsonRoot jsonA = JsonRoot.from("{\"a\": 1, \"b\": [1, 2, 3], \"c\": {\"d\": \"x\"}}");
+    JsonRoot jsonB = JsonRoot.from("{\"a\": 2, \"b\": [1, 5, 6], \"c\": {\"d\": \"y\"}}");
+
+    JsonCompareResult full = jsonA.compareTo(jsonB);
+    assertEquals(4, full.getInequalityCount());
+    assertFalse(full.isTruncated());
+
+    JsonCompareResult failFast = jsonA.compareToFailFast(jsonB);
+    assertFalse(failFast.isEqual());
+    assertEquals(1, failFast.getInequalityCount());
+    assertTrue(failFast.isTruncated());
+
+    JsonCompareResult firstTwo = jsonA.compareTo(jsonB, null, null, 2);
+    assertEquals(2, firstTwo.getInequalityCount());
+    assertTrue(firstTwo.isTruncated());
+  }
+
+  @Test
+  public void successReportingTest() throws IOException {
+    String bookTestA = new String(Files.readAllBytes(Paths.get(TEST_FOLDER + "book_a.json")));
+    String bookTestB = new String(Files.readAllBytes(Paths.get(TEST_FOLDER + "book_b.json")));
+    JsonRoot jsonA = JsonRoot.from(bookTestA);
+    JsonRoot jsonB = JsonRoot.from(bookTestB);
+
+    JsonCompareResult full = jsonA.compareTo(jsonB);
+    assertTrue(full.getSuccessCount() > 2);
+    assertEquals(full.getSuccessCount(), full.getSuccessMessages().size());
+
+    JsonCompareResult counts =
+        JsonEquals.ofType(LazyType.OBJECT)
+            .withSource(jsonA.getRoot())
+            .withComparate(jsonB.getRoot())
+            .withSuccessReporting(ReportingLevel.COUNTS)
+            .compare();
+    assertTrue(counts.isEqual());
+    assertEquals(full.getSuccessCount(), counts.getSuccessCount());
+    assertTrue(counts.getSuccessMessages().isEmpty());
+
+    JsonCompareResult sample =
+        JsonEquals.ofType(LazyType.OBJECT)
+            .withSource(jsonA.getRoot())
+            .withComparate(jsonB.getRoot())
+            .withSuccessSample(2)
+            .compare();
+    assertEquals(full.getSuccessCount(), sample.getSuccessCount());
+    assertEquals(2, sample.getSuccessMessages().size());
+  }
+
+  @Test
+  public void differencesTest() {
+    JsonRoot jsonA = JsonRoot.from("{\"data\": {\"items\": [1, \"x\"], \"id\": 7}}");
+    JsonRoot jsonB = JsonRoot.from("{\"data\": {\"items\": [2, \"x\"], \"id\": \"7\"}}");
+    JsonCompareResult result = jsonA.compareTo(jsonB);
+
+    assertEquals(2, result.getDifferences().size());
+    for (Difference difference : result.getDifferences()) {
+      if (difference.getKind() == Difference.Kind.VALUE_MISMATCH) {
+        assertEquals("$.data.items[0]", difference.getPath());
+        assertEquals(Arrays.<Object>asList("data", "items", 0), difference.getPathSegments());
+        assertEquals(1, difference.getExpected());
+        assertEquals(2, difference.getActual());
+      } else {
+        assertEquals(Difference.Kind.TYPE_MISMATCH, difference.getKind());
+        assertEquals("$.data.id", difference.getPath());
+      }
+    }
+    assertEquals(
+        result.getDifferences().get(0).getMessage(), result.getInequalityMessages().get(0));
+  }
+
+  @Test
+  public void parallelTest() {
+    StringBuilder rawA = new StringBuilder("[");
+    StringBuilder rawB = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      String separator = i == 0 ? "" : ",";
+      rawA.append(separator).append("{\"id\": ").append(i).append(", \"v\": [1, 2]}");
+      rawB.append(separator)
+          .append("{\"id\": ")
+          .append(i % 300 == 0 ? -i : i)
+          .append(", \"v\": [1, 2]}");
+    }
+    JsonRoot jsonA = JsonRoot.from(rawA.append("]").toString());
+    JsonRoot jsonB = JsonRoot.from(rawB.append("]").toString());
+
+    JsonCompareResult sequential = jsonA.compareTo(jsonB);
+    JsonCompareResult parallel =
+        JsonEquals.ofType(LazyType.ARRAY)
+            .withSource(jsonA.getRoot())
+            .withComparate(jsonB.getRoot())
+            .parallel(ForkJoinPool.commonPool(), 16)
+            .compare();
+
+    assertEquals(6, parallel.getInequalityCount());
+    assertEquals(sequential.getInequalityMessages(), parallel.getInequalityMessages());
+    assertEquals(sequential.getSuccessMessages(), parallel.getSuccessMessages());
+  }
+
+  @Test
+  public void batchTest() throws Exception {
+    List<JsonPair> pairs = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      pairs.add(
+          JsonPair.of(
+              JsonRoot.from("{\"id\": " + i + ", \"ts\": 1}"),
+              JsonRoot.from("{\"id\": " + (i % 10 == 0 ? -1 : i) + ", \"ts\": 2}")));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<CompletableFuture<JsonCompareResult>> results =
+          JsonBatch.of(Collections.singleton("$.ts"), null)
+              .withExecutor(executor)
+              .compareAll(pairs);
+      CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get();
+
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(i % 10 != 0, results.get(i).get().isEqual());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void sharedComparatorTest() throws Exception {
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withIgnoreFields(Collections.singleton("$.ts"))
+            .withSuccessReporting(ReportingLevel.COUNTS)
+            .build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<JsonCompareResult>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        JsonRoot jsonA = JsonRoot.from("{\"id\": " + i + ", \"ts\": 1, \"tags\": [1, 2]}");
+        JsonRoot jsonB =
+            JsonRoot.from("{\"id\": " + (i % 7 == 0 ? -i : i) + ", \"ts\": 2, \"tags\": [1, 2]}");
+        results.add(executor.submit(() -> jsonA.compareTo(jsonB, comparator)));
+      }
+
+      for (int i = 0; i < results.size(); i++) {
+        JsonCompareResult result = results.get(i).get();
+        assertEquals(i % 7 != 0 || i == 0, result.isEqual());
+        assertEquals(result.isEqual() ? 3 : 2, result.getSuccessCount());
+        assertTrue(result.getSuccessMessages().isEmpty());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void inequalityMessagesTest() {
+    JsonCompareResult result =
+        JsonRoot.from(
+                "{\"a\": 1, \"b\": \"x\", \"c\": [1, 2], \"d\": [1, {}], \"e\": {\"k\": 1},"
+                    + " \"f\": [1]}")
+            .compareTo(
+                JsonRoot.from(
+                    "{\"a\": 2, \"b\": 1, \"c\": [1, 3], \"d\": [{}, 1], \"e\": {\"j\": 1},"
+                        + " \"f\": [1, 2]}"));
+    assertEquals(
+        Arrays.asList(
+            "$.a values were not the same! Expected 1 but got 2",
+            "$.b were not of the same type! Expected type STRING but got type INTEGER",
+            "$.c JSON array value expected to be 2 but got 3",
+            "$.d[0] types were not the same! Expected VALUE but got OBJECT",
+            "$.d[1] types were not the same! Expected OBJECT but got VALUE",
+            "JSON objects do not have the same child key names! [k] vs. [j]",
+            "$.f JSON array not equal in length! 1 vs 2"),
+        result.getInequalityMessages());
+  }
+
+  @Test
+  public void streamingTest() throws IOException {
+    JsonComparator comparator = JsonComparator.builder().build();
+    for (String name : Arrays.asList("book", "array", "multiarray", "multi_array_objects")) {
+      Path pathA = Paths.get(TEST_FOLDER + name + "_a.json");
+      Path pathB = Paths.get(TEST_FOLDER + name + "_b.json");
+      JsonCompareResult tree =
+          JsonRoot.from(new String(Files.readAllBytes(pathA)))
+              .compareTo(JsonRoot.from(new String(Files.readAllBytes(pathB))), comparator);
+      JsonCompareResult streamed;
+      try (InputStream streamA = Files.newInputStream(pathA);
+          InputStream streamB = Files.newInputStream(pathB)) {
+        streamed = comparator.compare(streamA, streamB);
+      }
+
+      assertEquals(tree.isEqual(), streamed.isEqual());
+      assertEquals(tree.getSuccessCount(), streamed.getSuccessCount());
+      assertEquals(tree.getInequalityCount(), streamed.getInequalityCount());
+    }
+
+    // Fields in a different order are buffered, and mismatched key names discard child results
+    JsonCompareResult reordered =
+        comparator.compare(
+            new StringReader("{\"a\": 1, \"b\": {\"x\": 1, \"y\": [1, \"s\"]}, \"c\": [true]}"),
+            new StringReader("{\"a\": 1, \"c\": [true], \"b\": {\"y\": [1, \"t\"], \"x\": 1}}"));
+    assertEquals(1, reordered.getInequalityCount());
+    assertEquals("$.b.y[1]", reordered.getDifferences().get(0).getPath());
+
+    JsonCompareResult mismatched =
+        comparator.compare(
+            new StringReader("{\"a\": 2, \"b\": [1, 2], \"c\": null}"),
+            new StringReader("{\"a\": 1, \"b\": [1, 2, 3], \"d\": null}"));
+    assertEquals(1, mismatched.getInequalityCount());
+    assertEquals(Difference.Kind.KEYS_MISMATCH, mismatched.getDifferences().get(0).getKind());
+
+    assertEquals(null, comparator.compare(new StringReader("{}"), new StringReader("[]")));
+
+    // Rules still apply to the fields compared once the field order has diverged
+    JsonComparator withRules =
+        JsonComparator.builder()
+            .withIgnoreFields(Collections.singleton("$.a"))
+            .withUnorderedArrays(Collections.singleton("$.c"))
+            .build();
+    String rawA = "{\"b\": 0, \"a\": 1, \"c\": [1, 2, 3]}";
+    String rawB = "{\"a\": [0], \"c\": [3, 1, 2], \"b\": 0}";
+    JsonCompareResult streamedRules =
+        withRules.compare(new StringReader(rawA), new StringReader(rawB));
+    assertTrue(streamedRules.isEqual());
+    assertEquals(
+        JsonRoot.from(rawA).compareTo(JsonRoot.from(rawB), withRules).getSuccessCount(),
+        streamedRules.getSuccessCount());
+
+    // Under an inequality limit, objects and arrays which differ as a whole are still reported as
+    // a whole, as with a comparison of trees
+    String[][] limited = {
+      {"{\"a\": true, \"c\": 0}", "{\"a\": \"a\", \"c\": [2], \"d\": 2}"},
+      {"[1, 2, 3]", "[1, 5, 3, 4]"},
+      {"{\"a\": {\"x\": 1, \"y\": 1}, \"b\": [1, 2]}", "{\"a\": {\"x\": 2, \"z\": 1}, \"b\": [3]}"},
+      {"{\"a\": [1, {\"b\": 1}], \"c\": 1}", "{\"a\": [2, {\"b\": 2}], \"c\": 2}"}
+    };
+    for (int maxInequalities : new int[] {1, 2, 3}) {
+      JsonComparator limitedComparator =
+          withRules.toBuilder().withMaxInequalities(maxInequalities).build();
+      for (String[] pair : limited) {
+        JsonCompareResult tree =
+            limitedComparator.compare(JsonRoot.from(pair[0]), JsonRoot.from(pair[1]));
+        JsonCompareResult streamed =
+            limitedComparator.compare(new StringReader(pair[0]), new StringReader(pair[1]));
+        JsonCompareResult bytes =
+            limitedComparator.compare(
+                JsonRoot.from(pair[0].getBytes("UTF-8")), JsonRoot.from(pair[1].getBytes("UTF-8")));
+        for (JsonCompareResult actual : Arrays.asList(streamed, bytes)) {
+          assertEquals(tree.getInequalityMessages(), actual.getInequalityMessages());
+          assertEquals(tree.getInequalityCount(), actual.getInequalityCount());
+          assertEquals(tree.isTruncated(), actual.isTruncated());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void mappedFileTest() throws IOException {
+    for (String name : Arrays.asList("book", "array", "multiarray", "multi_array_objects")) {
+      Path pathA = Paths.get(TEST_FOLDER + name + "_a.json");
+      Path pathB = Paths.get(TEST_FOLDER + name + "_b.json");
+      JsonCompareResult fromStrings =
+          JsonRoot.from(new String(Files.readAllBytes(pathA)))
+              .compareTo(JsonRoot.from(new String(Files.readAllBytes(pathB))));
+      JsonRoot mappedA = JsonRoot.from(pathA);
+      JsonRoot mappedB = JsonRoot.from(pathB);
+      JsonCompareResult fromFiles = mappedA.compareTo(mappedB);
+
+      assertEquals(fromStrings.isEqual(), fromFiles.isEqual());
+      assertEquals(fromStrings.getSuccessCount(), fromFiles.getSuccessCount());
+      assertEquals(fromStrings.getInequalityCount(), fromFiles.getInequalityCount());
+      assertEquals(mappedA.isRootObject(), mappedA.getRoot().getType() == LazyType.OBJECT);
+    }
+  }
+
+  @Test
+  public void byteComparisonTest() throws IOException {
+    List<JsonComparator> comparators =
+        Arrays.asList(
+            JsonComparator.builder().withSuccessReporting(ReportingLevel.FULL).build(),
+            JsonComparator.builder().withKeyDiff().withArrayDiff().build(),
+            JsonComparator.builder().withNumericTolerance(NumericTolerance.absolute(0.5)).build());
+    for (JsonComparator comparator : comparators) {
+      for (String name : Arrays.asList("book", "array", "multiarray", "multi_array_objects")) {
+        byte[] bytesA = Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_a.json"));
+        byte[] bytesB = Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_b.json"));
+        assertSameResult(
+            JsonRoot.from(new String(bytesA, "UTF-8"))
+                .compareTo(JsonRoot.from(new String(bytesB, "UTF-8")), comparator),
+            JsonRoot.from(bytesA).compareTo(JsonRoot.from(bytesB), comparator));
+      }
+
+      // Escaped strings, numbers spelled apart and reordered or mismatched fields
+      String rawA =
+          "{\"a\\u0041\": \"\\u00e9t\u00e9\", \"n\": [1.0, 2, 3e0], \"x\": {\"p\": 1, \"q\": [true]},"
+              + " \"y\": {\"k\": 1, \"l\": 2}}";
+      String rawB =
+          "{\"aA\": \"\u00e9t\\u00e9\", \"n\": [1.00, 2.0, 3.2], \"x\": {\"q\": [false], \"p\": 1.2},"
+              + " \"y\": {\"k\": \"1\", \"m\": 2}}";
+      assertSameResult(
+          JsonRoot.from(rawA).compareTo(JsonRoot.from(rawB), comparator),
+          JsonRoot.from(rawA.getBytes("UTF-8"))
+              .compareTo(JsonRoot.from(rawB.getBytes("UTF-8")), comparator));
+    }
+
+    // Text and bytes agree on the whitespace allowed around the root element
+    for (String raw : Arrays.asList(" \n{\"a\": [1]}\n", "\t[1, 2] ")) {
+      JsonRoot text = JsonRoot.from(raw);
+      JsonRoot bytes = JsonRoot.from(raw.getBytes("UTF-8"));
+      assertEquals(text.isRootObject(), bytes.isRootObject());
+      assertEquals(text.isRootArray(), bytes.isRootArray());
+      assertTrue(text.isRootObject() || text.isRootArray());
+      assertTrue(text.compareTo(bytes).isEqual());
+      assertEquals(text.getRoot().toString(), bytes.getRoot().toString());
+    }
+
+    // Under an inequality limit or with a listener, the results are those of a tree comparison
+    String[][] pairs = {
+      {"{\"a\": true, \"c\": 0}", "{\"a\": \"a\", \"c\": [2], \"d\": 2}"},
+      {"[1, 2, 3]", "[1, 5, 3, 4]"},
+      {"{\"a\": {\"x\": 1, \"y\": 1}, \"b\": [1, 2]}", "{\"a\": {\"x\": 2, \"z\": 1}, \"b\": [3]}"}
+    };
+    for (String[] pair : pairs) {
+      JsonRoot treeA = JsonRoot.from(pair[0]);
+      JsonRoot treeB = JsonRoot.from(pair[1]);
+      JsonRoot bytesA = JsonRoot.from(pair[0].getBytes("UTF-8"));
+      JsonRoot bytesB = JsonRoot.from(pair[1].getBytes("UTF-8"));
+      JsonCompareResult expected = treeA.compareToFailFast(treeB);
+      JsonCompareResult actual = bytesA.compareToFailFast(bytesB);
+      assertEquals(expected.getInequalityMessages(), actual.getInequalityMessages());
+      assertEquals(expected.getInequalityCount(), actual.getInequalityCount());
+
+      JsonComparator limited = JsonComparator.builder().withMaxInequalities(2).build();
+      expected = limited.compare(treeA, treeB);
+      actual = limited.compare(bytesA, bytesB);
+      assertEquals(expected.getInequalityMessages(), actual.getInequalityMessages());
+      assertEquals(expected.getInequalityCount(), actual.getInequalityCount());
+
+      JsonComparator comparator = JsonComparator.builder().build();
+      List<Difference> fromTree = new ArrayList<>();
+      List<Difference> fromBytes = new ArrayList<>();
+      expected = comparator.compare(treeA, treeB, fromTree::add);
+      actual = comparator.compare(bytesA, bytesB, fromBytes::add);
+      assertEquals(messages(fromTree), messages(fromBytes));
+      assertEquals(expected.getInequalityCount(), actual.getInequalityCount());
+    }
+  }
+
+  private static void assertSameResult(JsonCompareResult expected, JsonCompareResult actual) {
+    assertEquals(expected.isEqual(), actual.isEqual());
+    assertEquals(expected.getSuccessCount(), actual.getSuccessCount());
+    // Results are collected in document order rather than in the order of sorted key names
+    assertEquals(sorted(expected.getSuccessMessages()), sorted(actual.getSuccessMessages()));
+    assertEquals(sorted(expected.getInequalityMessages()), sorted(actual.getInequalityMessages()));
+  }
+
+  @Test
+  public void subtreeDigestsTest() throws IOException {
+    JsonComparator.Builder builder =
+        JsonComparator.builder()
+            .withSuccessReporting(ReportingLevel.COUNTS)
+            .withIgnoreFields(Collections.singleton("$[0].ignored"));
+    JsonComparator full = builder.build();
+    JsonComparator digests = builder.withSubtreeDigests().build();
+
+    for (String name : Arrays.asList("book", "array", "multiarray", "multi_array_objects")) {
+      JsonRoot jsonA =
+          JsonRoot.from(new String(Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_a.json"))));
+      JsonRoot jsonB =
+          JsonRoot.from(new String(Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_b.json"))));
+      for (JsonRoot comparate : Arrays.asList(jsonA, jsonB)) {
+        JsonCompareResult expected = jsonA.compareTo(comparate, full);
+        JsonCompareResult skipped = jsonA.compareTo(comparate, digests);
+
+        assertEquals(expected.isEqual(), skipped.isEqual());
+        assertEquals(expected.getSuccessCount(), skipped.getSuccessCount());
+        assertEquals(expected.getInequalityMessages(), skipped.getInequalityMessages());
+      }
+    }
+  }
+
+  @Test
+  public void rawSpansTest() throws IOException {
+    JsonComparator.Builder builder =
+        JsonComparator.builder().withSuccessReporting(ReportingLevel.COUNTS);
+    JsonComparator full = builder.build();
+    JsonComparator spans = builder.withRawSpans().build();
+
+    for (String name : Arrays.asList("book", "array", "multiarray", "multi_array_objects")) {
+      Path pathA = Paths.get(TEST_FOLDER + name + "_a.json");
+      Path pathB = Paths.get(TEST_FOLDER + name + "_b.json");
+      JsonCompareResult expected =
+          JsonRoot.from(new String(Files.readAllBytes(pathA)))
+              .compareTo(JsonRoot.from(new String(Files.readAllBytes(pathB))), full);
+      JsonCompareResult skipped = JsonRoot.from(pathA).compareTo(JsonRoot.from(pathB), spans);
+
+      assertEquals(expected.isEqual(), skipped.isEqual());
+      assertEquals(expected.getSuccessCount(), skipped.getSuccessCount());
+      assertEquals(expected.getInequalityMessages(), skipped.getInequalityMessages());
+    }
+
+    JsonRoot jsonA =
+        JsonRoot.from(
+            "{\"a\\\"b\": {\"x\": [1, 2.5, null]}, \"c\": {\"y\": \"s\"}, \"d\": [[true]]}");
+    JsonRoot jsonB =
+        JsonRoot.from(
+            "{\"c\": {\"y\": \"t\"}, \"a\\\"b\": {\"x\": [1, 2.5, null]}, \"d\": [[true]]}");
+    JsonCompareResult result = jsonA.compareTo(jsonB, spans);
+    assertEquals(1, result.getInequalityCount());
+    assertEquals(4, result.getSuccessCount());
+  }
+
+  @Test
+  public void unorderedArraysTest() {
+    JsonRoot jsonA =
+        JsonRoot.from(
+            "{\"tags\": [\"a\", \"b\", \"c\"], \"items\": ["
+                + "{\"id\": 1, \"ts\": 10, \"v\": [1, 2]}, "
+                + "{\"id\": 2, \"ts\": 20, \"v\": [3]}, "
+                + "{\"id\": 3, \"ts\": 30, \"v\": []}]}");
+    JsonRoot jsonB =
+        JsonRoot.from(
+            "{\"tags\": [\"c\", \"a\", \"b\"], \"items\": ["
+                + "{\"id\": 4, \"ts\": 40, \"v\": []}, "
+                + "{\"id\": 1, \"ts\": 11, \"v\": [2, 1]}, "
+                + "{\"id\": 2, \"ts\": 21, \"v\": [3]}]}");
+    JsonCompareResult ordered =
+        jsonA.compareTo(
+            jsonB,
+            JsonComparator.builder()
+                .withIgnoreFields(Collections.singleton("$.items[*].ts"))
+                .withUnorderedArrays(new HashSet<>(Arrays.asList("$.tags", "$.items[*].v")))
+                .build());
+    assertTrue(
+        ordered
+            .getInequalityMessages()
+            .contains("$.items[0].id values were not the same! Expected 1 but got 4"));
+
+    JsonCompareResult unordered =
+        jsonA.compareTo(
+            jsonB,
+            JsonComparator.builder()
+                .withIgnoreFields(Collections.singleton("$.items[*].ts"))
+                .withUnorderedArrays(
+                    new HashSet<>(Arrays.asList("$.tags", "$.items", "$.items[*].v")))
+                .build());
+    assertEquals(2, unordered.getInequalityCount());
+    Difference removed = unordered.getDifferences().get(0);
+    assertEquals(Difference.Kind.REMOVED_ELEMENT, removed.getKind());
+    assertEquals("$.items[2]", removed.getPath());
+    Difference added = unordered.getDifferences().get(1);
+    assertEquals(Difference.Kind.ADDED_ELEMENT, added.getKind());
+    assertEquals("$.items[0]", added.getPath());
+    assertEquals(8, unordered.getSuccessCount());
+  }
+
+  @Test
+  public void arrayKeysTest() {
+    StringBuilder rawA = new StringBuilder("{\"items\": [");
+    StringBuilder rawB = new StringBuilder("{\"items\": [{\"id\": \"new\", \"v\": 0}");
+    for (int i = 0; i < 100; i++) {
+      rawA.append(i == 0 ? "" : ",").append("{\"id\": ").append(i).append(", \"v\": ").append(i);
+      if (i != 50) {
+        rawB.append(",{\"id\": ").append(i).append(", \"v\": ").append(i == 70 ? -i : i);
+        rawB.append("}");
+      }
+      rawA.append("}");
+    }
+    JsonRoot jsonA = JsonRoot.from(rawA.append("]}").toString());
+    JsonRoot jsonB = JsonRoot.from(rawB.append("]}").toString());
+
+    assertTrue(jsonA.compareTo(jsonB).getInequalityCount() > 3);
+
+    JsonCompareResult result =
+        jsonA.compareTo(
+            jsonB,
+            JsonComparator.builder().withArrayKeys(Collections.singleton("$.items[*]:id")).build());
+    assertEquals(3, result.getInequalityCount());
+    assertEquals(Difference.Kind.REMOVED_ELEMENT, result.getDifferences().get(0).getKind());
+    assertEquals("$.items[50]", result.getDifferences().get(0).getPath());
+    assertEquals(Difference.Kind.VALUE_MISMATCH, result.getDifferences().get(1).getKind());
+    assertEquals("$.items[70].v", result.getDifferences().get(1).getPath());
+    assertEquals(Difference.Kind.ADDED_ELEMENT, result.getDifferences().get(2).getKind());
+    assertEquals("$.items[0]", result.getDifferences().get(2).getPath());
+    assertEquals(197, result.getSuccessCount());
+
+    // Keys beyond 64 bits are matched with arbitrary precision
+    result =
+        JsonRoot.from("[{\"id\": 123456789012345678901234567890, \"v\": 1}, {\"id\": 1, \"v\": 2}]")
+            .compareTo(
+                JsonRoot.from(
+                    "[{\"id\": 1, \"v\": 2}, {\"id\": 123456789012345678901234567890, \"v\": 1}]"),
+                JsonComparator.builder().withArrayKeys(Collections.singleton("$[*]:id")).build());
+    assertTrue(result.isEqual());
+  }
+
+  @Test
+  public void arrayDiffTest() throws IOException {
+    JsonRoot jsonA = JsonRoot.from("{\"events\": [1, 2, 3, {\"a\": 1}, 5, 6, 7, 8]}");
+    JsonRoot jsonB = JsonRoot.from("{\"events\": [0, 1, 2, {\"a\": 2}, 5, 6, 8, 9, 10]}");
+
+    JsonCompareResult lengths = jsonA.compareTo(jsonB);
+    assertEquals(1, lengths.getInequalityCount());
+    assertEquals(Difference.Kind.LENGTH_MISMATCH, lengths.getDifferences().get(0).getKind());
+
+    JsonComparator comparator = JsonComparator.builder().withArrayDiff().build();
+    JsonCompareResult diff = jsonA.compareTo(jsonB, comparator);
+    List<String> expected =
+        Arrays.asList(
+            "$.events[0] JSON array element was added! Got 0",
+            "$.events[2] JSON array element was removed! Expected 3",
+            "$.events[3].a values were not the same! Expected 1 but got 2",
+            "$.events[6] JSON array element was removed! Expected 7",
+            "$.events[7] JSON array element was added! Got 9",
+            "$.events[8] JSON array element was added! Got 10");
+    assertEquals(expected, diff.getInequalityMessages());
+    assertEquals(5, diff.getSuccessCount());
+    assertEquals(
+        expected,
+        comparator
+            .compare(
+                new StringReader("{\"events\": [1, 2, 3, {\"a\": 1}, 5, 6, 7, 8]}"),
+                new StringReader("{\"events\": [0, 1, 2, {\"a\": 2}, 5, 6, 8, 9, 10]}"))
+            .getInequalityMessages());
+
+    JsonCompareResult capped =
+        jsonA.compareTo(jsonB, JsonComparator.builder().withArrayDiff(4).build());
+    assertEquals(Difference.Kind.LENGTH_MISMATCH, capped.getDifferences().get(0).getKind());
+  }
+
+  @Test(timeout = 10000)
+  public void tolerantUnorderedArrayTest() {
+    int size = 20000;
+    StringBuilder numbersA = new StringBuilder("{\"v\": [");
+    StringBuilder numbersB = new StringBuilder("{\"v\": [");
+    StringBuilder objectsA = new StringBuilder("{\"v\": [");
+    StringBuilder objectsB = new StringBuilder("{\"v\": [");
+    for (int i = 0; i < size; i++) {
+      String separator = i == 0 ? "" : ", ";
+      numbersA.append(separator).append(i * 0.5);
+      // Reversed, and off by less than the tolerance
+      numbersB.append(separator).append((size - 1 - i) * 0.5 + 0.001);
+      objectsA.append(separator).append("{\"x\": ").append(i * 0.5).append('}');
+      objectsB.append(separator).append("{\"x\": ").append(i * 0.5 + 0.001).append('}');
+    }
+    // A single number is off by more than the tolerance
+    numbersB.append(", 1.0e7]}");
+    numbersA.append(", 2.0e7]}");
+    objectsA.append("]}");
+    objectsB.append("]}");
+
+    JsonComparator unordered =
+        JsonComparator.builder()
+            .withNumericTolerance(NumericTolerance.absolute(0.01))
+            .withUnorderedArrays(Collections.singleton("$.v"))
+            .build();
+    JsonCompareResult numbers =
+        JsonRoot.from(numbersA.toString()).compareTo(JsonRoot.from(numbersB.toString()), unordered);
+    assertEquals(
+        Collections.singletonList("$.v JSON array value expected to be 2.0E7 but got 1.0E7"),
+        numbers.getInequalityMessages());
+    assertEquals(size, numbers.getSuccessCount());
+
+    JsonCompareResult objects =
+        JsonRoot.from(objectsA.toString()).compareTo(JsonRoot.from(objectsB.toString()), unordered);
+    assertTrue(objects.isEqual());
+  }
+
+  @Test
+  public void numericToleranceTest() throws IOException {
+    String rawA =
+        "{\"f\": 1.0, \"id\": 9007199254740993, \"e\": 0.1, \"t\": 2.5,"
+            + " \"v\": [null, 1.50, 12345678901]}";
+    String rawB =
+        "{\"f\": 1.00, \"id\": 9007199254740992, \"e\": 0.10000000000000000001, \"t\": 2.51,"
+            + " \"v\": [null, 1.5, 12345678901]}";
+    JsonRoot jsonA = JsonRoot.from(rawA);
+    JsonRoot jsonB = JsonRoot.from(rawB);
+
+    JsonCompareResult result = jsonA.compareTo(jsonB);
+    assertEquals(
+        Arrays.asList(
+            "$.id values were not the same! Expected 9007199254740993 but got 9007199254740992",
+            "$.t values were not the same! Expected 2.5 but got 2.51"),
+        sorted(result.getInequalityMessages()));
+    assertEquals(5, result.getSuccessCount());
+
+    JsonComparator exact =
+        JsonComparator.builder().withNumericTolerance(NumericTolerance.EXACT).build();
+    assertEquals(3, jsonA.compareTo(jsonB, exact).getInequalityCount());
+
+    JsonComparator tolerant =
+        JsonComparator.builder().withNumericTolerance(NumericTolerance.absolute(0.05)).build();
+    JsonCompareResult tolerantResult = jsonA.compareTo(jsonB, tolerant);
+    assertEquals(1, tolerantResult.getInequalityCount());
+    assertEquals("$.id", tolerantResult.getDifferences().get(0).getPath());
+    assertEquals(
+        tolerantResult.getInequalityMessages(),
+        tolerant.compare(new StringReader(rawA), new StringReader(rawB)).getInequalityMessages());
+    assertEquals(
+        1,
+        jsonA
+            .compareTo(
+                jsonB,
+                JsonComparator.builder()
+                    .withNumericTolerance(NumericTolerance.relative(0.01))
+                    .build())
+            .getInequalityCount());
+
+    // Numbers within a tolerance share a hash, so unordered elements are paired by their matches
+    JsonComparator unordered =
+        JsonComparator.builder()
+            .withUnorderedArrays(Collections.singleton("$.v"))
+            .withNumericTolerance(NumericTolerance.absolute(0.01))
+            .build();
+    assertTrue(
+        JsonRoot.from("{\"v\": [1.0, 2.0]}")
+            .compareTo(JsonRoot.from("{\"v\": [2.0, 1.0]}"), unordered)
+            .isEqual());
+    JsonCompareResult unmatched =
+        JsonRoot.from("{\"v\": [1.0, 2.0, 3.0]}")
+            .compareTo(JsonRoot.from("{\"v\": [3.001, 5.0, 1.0]}"), unordered);
+    assertEquals(
+        Collections.singletonList("$.v JSON array value expected to be 2.0 but got 5.0"),
+        unmatched.getInequalityMessages());
+  }
+
+  @Test
+  public void keyDiffTest() throws IOException {
+    String rawA = "{\"a\": 2, \"b\": [1, 2], \"c\": null, \"e\": {\"x\": 1}, \"ts\": 1}";
+    String rawB = "{\"a\": 1, \"b\": [1, 2], \"d\": \"s\", \"e\": {\"y\": 1}}";
+    JsonRoot jsonA = JsonRoot.from(rawA);
+    JsonRoot jsonB = JsonRoot.from(rawB);
+
+    JsonCompareResult keys = jsonA.compareTo(jsonB);
+    assertEquals(1, keys.getInequalityCount());
+    assertEquals(Difference.Kind.KEYS_MISMATCH, keys.getDifferences().get(0).getKind());
+
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withKeyDiff()
+            .withIgnoreFields(Collections.singleton("$.ts"))
+            .build();
+    JsonCompareResult result = jsonA.compareTo(jsonB, comparator);
+    List<String> expected =
+        Arrays.asList(
+            "$.a values were not the same! Expected 2 but got 1",
+            "$.c JSON object field was removed! Expected null",
+            "$.d JSON object field was added! Got s",
+            "$.e.x JSON object field was removed! Expected 1",
+            "$.e.y JSON object field was added! Got 1");
+    assertEquals(expected, sorted(result.getInequalityMessages()));
+    assertEquals(2, result.getSuccessCount());
+    assertEquals(
+        expected,
+        sorted(
+            comparator
+                .compare(new StringReader(rawA), new StringReader(rawB))
+                .getInequalityMessages()));
+  }
+
+  @Test
+  public void differenceListenerTest() throws IOException {
+    String rawA = "{\"a\": 1, \"b\": [1, 2, 3], \"c\": {\"d\": true, \"e\": \"x\"}}";
+    String rawB = "{\"a\": 2, \"b\": [1, 5, 6], \"c\": {\"d\": false, \"e\": \"x\"}}";
+    JsonComparator comparator = JsonComparator.builder().build();
+    JsonCompareResult collected = comparator.compare(JsonRoot.from(rawA), JsonRoot.from(rawB));
+    assertEquals(4, collected.getInequalityCount());
+
+    // Every difference is delivered to the listener in order, and none are kept
+    List<Difference> delivered = new ArrayList<>();
+    JsonCompareResult result =
+        comparator.compare(JsonRoot.from(rawA), JsonRoot.from(rawB), delivered::add);
+    assertEquals(collected.getInequalityMessages(), messages(delivered));
+    assertFalse(result.isEqual());
+    assertTrue(result.getDifferences().isEmpty());
+    assertEquals(4, result.getInequalityCount());
+    assertEquals(collected.getSuccessCount(), result.getSuccessCount());
+    assertFalse(result.isTruncated());
+
+    // The listener cancels the comparison after the second difference
+    List<Difference> streamed = new ArrayList<>();
+    result =
+        comparator.compare(
+            new StringReader(rawA),
+            new StringReader(rawB),
+            difference -> streamed.add(difference) && streamed.size() < 2);
+    assertEquals(collected.getInequalityMessages().subList(0, 2), messages(streamed));
+    assertEquals(2, result.getInequalityCount());
+    assertTrue(result.isTruncated());
+
+    // Inequalities within objects and arrays which differ as a whole are never delivered
+    String[][] rolledBack = {
+      {"{\"a\": true, \"c\": 0}", "{\"a\": \"a\", \"c\": [2], \"d\": 2}"},
+      {"[1, 2, 3]", "[1, 5, 3, 4]"},
+      {"{\"x\": [1, 2, 3], \"y\": 1}", "{\"x\": [1, 5, 3, 4], \"y\": 2}"}
+    };
+    for (String[] pair : rolledBack) {
+      JsonCompareResult expected =
+          comparator.compare(JsonRoot.from(pair[0]), JsonRoot.from(pair[1]));
+      streamed.clear();
+      result =
+          comparator.compare(new StringReader(pair[0]), new StringReader(pair[1]), streamed::add);
+      assertEquals(expected.getInequalityMessages(), messages(streamed));
+      assertEquals(expected.getInequalityCount(), result.getInequalityCount());
+    }
+
+    delivered.clear();
+    result =
+        JsonEquals.between(new LazyObject(rawA), new LazyObject(rawB))
+            .withDifferenceListener(delivered::add)
+            .compare();
+    assertEquals(collected.getInequalityMessages(), messages(delivered));
+    assertEquals(4, result.getInequalityCount());
+  }
+
+  @Test
+  public void jacksonBackendTest() throws IOException {
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withIgnoreFields(Collections.singleton("$[*].data.last_updated"))
+            .withPruneFields(Collections.singletonMap("$[*].data.identities[*]:installed", "false"))
+            .build();
+    JsonComparator jackson = comparator.toBuilder().withBackend(JacksonNodes.backend()).build();
+    for (String name :
+        Arrays.asList("array", "book", "ignore_prune", "multi_array_objects", "multiarray")) {
+      String rawA = new String(Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_a.json")));
+      String rawB = new String(Files.readAllBytes(Paths.get(TEST_FOLDER + name + "_b.json")));
+      JsonCompareResult expected =
+          comparator.compare(comparator.parse(rawA), comparator.parse(rawB));
+
+      // Jackson trees are compared like LazyJSON ones, including against one another
+      JsonCompareResult result = jackson.compare(jackson.parse(rawA), jackson.parse(rawB));
+      JsonCompareResult mixed = comparator.compare(comparator.parse(rawA), jackson.parse(rawB));
+      for (JsonCompareResult actual : Arrays.asList(result, mixed)) {
+        assertEquals(name, expected.isEqual(), actual.isEqual());
+        assertEquals(name, expected.getSuccessCount(), actual.getSuccessCount());
+        assertEquals(name, expected.getInequalityCount(), actual.getInequalityCount());
+      }
+    }
+
+    JsonCompareResult numbers =
+        jackson.compare(
+            jackson.parse("{\"a\": 12345678901234567890123, \"b\": [1.50, null]}"),
+            jackson.parse("{\"a\": 12345678901234567890124, \"b\": [1.5, null]}"));
+    assertEquals(
+        Collections.singletonList(
+            "$.a values were not the same! Expected 12345678901234567890123 but got 12345678901234567890124"),
+        numbers.getInequalityMessages());
+    assertEquals(2, numbers.getSuccessCount());
+  }
+
+  private static List<String> messages(List<Difference> differences) {
+    List<String> messages = new ArrayList<>();
+    for (Difference difference : differences) {
+      messages.add(difference.getMessage());
+    }
+    return messages;
+  }
+
+  private static List<String> sorted(List<String> messages) {
+    List<String> sorted = new ArrayList<>(messages);
+    Collections.sort(sorted);
+    return sorted;
+  }
 }
@@ -15,16 +15,26 @@
  */
 package com.github.kvnxiao.jsonequals.tests;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.github.kvnxiao.jsonequals.ComparisonMetrics;
+import com.github.kvnxiao.jsonequals.ComparisonStats;
+import com.github.kvnxiao.jsonequals.JsonComparator;
 import com.github.kvnxiao.jsonequals.JsonCompareResult;
 import com.github.kvnxiao.jsonequals.JsonEquals;
 import com.github.kvnxiao.jsonequals.JsonRoot;
@@ -78,4 +88,106 @@ public class IgnoreAndPruneTest {
 
     assertTrue(result.isEqual());
   }
+
+  @Test
+  public void streamingIgnoreAndPruneTest() throws IOException {
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withIgnoreFields(Collections.singleton("$[*].data.last_updated"))
+            .withPruneFields(Collections.singletonMap("$[*].data.identities[*]:installed", "false"))
+            .build();
+
+    JsonCompareResult result;
+    try (Reader readerA = Files.newBufferedReader(Paths.get(ignoreAndPruneA));
+        Reader readerB = Files.newBufferedReader(Paths.get(ignoreAndPruneB))) {
+      result = comparator.compare(readerA, readerB);
+    }
+    result.getInequalityMessages().forEach(System.out::println);
+
+    assertTrue(result.isEqual());
+  }
+
+  @Test
+  public void ignoreIndexAndWildcardTest() {
+    JsonRoot jsonA =
+        JsonRoot.from(
+            "[{\"id\": 1, \"ts\": 10, \"tag\": \"a\"}, {\"id\": 2, \"ts\": 11, \"tag\": \"b\"}]");
+    JsonRoot jsonB =
+        JsonRoot.from(
+            "[{\"id\": 1, \"ts\": 20, \"tag\": \"x\"}, {\"id\": 2, \"ts\": 21, \"tag\": \"b\"}]");
+
+    Set<String> ignoreFields = new HashSet<>();
+    ignoreFields.add("$[*].ts");
+    ignoreFields.add("$[0].tag");
+
+    assertTrue(jsonA.compareToWithIgnore(jsonB, ignoreFields).isEqual());
+
+    ignoreFields.remove("$[0].tag");
+    JsonCompareResult result = jsonA.compareToWithIgnore(jsonB, ignoreFields);
+    assertFalse(result.isEqual());
+    assertEquals(1, result.getInequalityCount());
+  }
+
+  @Test
+  public void pruneTypedValuesTest() {
+    JsonRoot jsonA =
+        JsonRoot.from("{\"items\": [{\"v\": 1, \"s\": {\"on\": true}}, {\"v\": 2.5}, {\"v\": 3}]}");
+    JsonRoot jsonB = JsonRoot.from("{\"items\": [{\"v\": 3}]}");
+
+    Map<String, String> pruneFields = new HashMap<>();
+    pruneFields.put("$.items[*]:v", "2.5");
+    pruneFields.put("$.items[*]:s.on", "true");
+
+    assertTrue(jsonA.compareToWithPrune(jsonB, pruneFields).isEqual());
+
+    // Integers beyond 64 bits are never pruned by an integer rule
+    jsonA = JsonRoot.from("{\"items\": [{\"v\": 123456789012345678901234567890}, {\"v\": 1}]}");
+    jsonB = JsonRoot.from("{\"items\": [{\"v\": 123456789012345678901234567890}]}");
+    assertTrue(
+        jsonA.compareToWithPrune(jsonB, Collections.singletonMap("$.items[*]:v", "1")).isEqual());
+  }
+
+  @Test
+  public void metricsTest() throws IOException {
+    List<Long> parses = new ArrayList<>();
+    List<ComparisonStats> comparisons = new ArrayList<>();
+    JsonComparator comparator =
+        JsonComparator.builder()
+            .withIgnoreFields(Collections.singleton("$.ts"))
+            .withPruneFields(Collections.singletonMap("$.items[*]:v", "1"))
+            .withMetrics(
+                new ComparisonMetrics() {
+                  @Override
+                  public void onParse(long nanos) {
+                    parses.add(nanos);
+                  }
+
+                  @Override
+                  public void onComparison(ComparisonStats stats) {
+                    comparisons.add(stats);
+                  }
+                })
+            .build();
+    String rawA =
+        "{\"a\": {\"b\": [1, {\"c\": 2}]}, \"ts\": 1, \"items\": [{\"v\": 1}, {\"v\": 2}]}";
+    String rawB =
+        "{\"a\": {\"b\": [1, {\"c\": 2}]}, \"ts\": 2, \"items\": [{\"v\": 2}, {\"v\": 1}]}";
+
+    assertTrue(comparator.compare(comparator.parse(rawA), comparator.parse(rawB)).isEqual());
+    assertTrue(comparator.compare(new StringReader(rawA), new StringReader(rawB)).isEqual());
+    assertEquals(2, parses.size());
+    assertEquals(2, comparisons.size());
+
+    // Both the tree and the streaming comparison visit the same nodes
+    for (ComparisonStats stats : comparisons) {
+      assertEquals(4, stats.getObjectCount());
+      assertEquals(2, stats.getArrayCount());
+      assertEquals(3, stats.getLeafCount());
+      assertEquals(9, stats.getNodesVisited());
+      assertEquals(4, stats.getMaxDepth());
+      assertEquals(2, stats.getPrunedElements());
+      assertEquals(1, stats.getIgnoredSubtrees());
+      assertTrue(stats.getTraverseNanos() >= stats.getPruneNanos());
+    }
+  }
 }